@@ -0,0 +1,46 @@
+#!/bin/sh
+#
+# Runs the match log tools on a desktop JVM, without the Android build.
+# Only the pure Java classes the tools need are compiled, so any JDK 8 or
+# newer works. Run from anywhere; paths are relative to the project root.
+#
+#   TeamCode/replay.sh ReplayEngine log.bin startX startY startHeading [layout.csv]
+#   TeamCode/replay.sh VisionBenchmark log.bin [passes] [layout.csv]
+#
+# Logs are recorded on the robot to /sdcard/FIRST/matchlogs when
+# RECORD_MATCHES is on, copy one off with:
+#
+#   adb pull /sdcard/FIRST/matchlogs/blue-<millis>.bin
+#
+# The same classes have unit tests, run with ./gradlew :TeamCode:testDebugUnitTest
+#
+set -e
+
+if [ $# -lt 2 ]; then
+    sed -n 's/^#   TeamCode/TeamCode/p' "$0"
+    exit 1
+fi
+
+cd "$(dirname "$0")/.."
+SRC=TeamCode/src/main/java/org/firstinspires/ftc/teamcode
+OUT=TeamCode/build/replay
+
+mkdir -p "$OUT"
+javac -Xlint:all -d "$OUT" \
+    "$SRC"/logging/MatchLog.java \
+    "$SRC"/logging/PoseEstimator.java \
+    "$SRC"/logging/FusedEstimator.java \
+    "$SRC"/logging/ReplayEngine.java \
+    "$SRC"/logging/VisionBenchmark.java \
+    "$SRC"/robot/FieldLayout.java \
+    "$SRC"/robot/Odometry.java \
+    "$SRC"/robot/SlipDetector.java \
+    "$SRC"/robot/TagLocalizer.java \
+    "$SRC"/utils/Constants.java \
+    "$SRC"/utils/MathUtilities.java \
+    "$SRC"/utils/Pose2d.java \
+    "$SRC"/utils/Twist2d.java
+
+TOOL=$1
+shift
+exec java -cp "$OUT" org.firstinspires.ftc.teamcode.logging."$TOOL" "$@"
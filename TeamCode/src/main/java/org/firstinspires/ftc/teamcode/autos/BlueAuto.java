@@ -4,16 +4,23 @@ import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.teamcode.robot.BatteryVoltage;
 import org.firstinspires.ftc.teamcode.robot.Drivetrain;
 import org.firstinspires.ftc.teamcode.robot.Intake;
+import org.firstinspires.ftc.teamcode.robot.PropDetector;
+import org.firstinspires.ftc.teamcode.robot.PropProcessor;
 import org.firstinspires.ftc.teamcode.utils.Constants;
 import org.firstinspires.ftc.teamcode.utils.MathUtilities;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
 
 @Autonomous(name="Blue Auto")
 public class BlueAuto extends LinearOpMode implements Constants {
     private ElapsedTime timer = new ElapsedTime();
     private Drivetrain drivetrain;
     private Intake intake;
+    private BatteryVoltage battery;
+    private PropDetector propDetector;
+    private double spikeX = 36;
     private double[] xy = {36, -64.5};
     double distance = Math.sqrt(Math.pow(36 - xy[0], 2) + Math.pow(-32 - xy[1], 2) );
 
@@ -21,24 +28,41 @@ public class BlueAuto extends LinearOpMode implements Constants {
     public void runOpMode() {
         drivetrain = new Drivetrain(hardwareMap, BLUE_ALLIANCE, xy[0], xy[1], 90.0);
         intake = new Intake(hardwareMap);
+        battery = new BatteryVoltage(hardwareMap);
 
         xy = new double[]{36, -64.5};
 
-        telemetry.addData("Status", "Initialized");
-        telemetry.update();
+        propDetector = new PropDetector(hardwareMap, BLUE_ALLIANCE);
+
+        while(opModeInInit()) {
+            battery.update(System.nanoTime());
+            telemetry.addData("Status", "Initialized");
+            telemetry.addData("spike mark", propDetector.getSpikeMark());
+            telemetry.addData("confidence", propDetector.getConfidence());
+            telemetry.update();
+        }
+
+        // the camera's left is -x from this side of the field
+        int spikeMark = propDetector.getSpikeMark();
+        propDetector.close();
+        if(spikeMark == PropProcessor.LEFT)
+            spikeX -= SPIKE_MARK_OFFSET;
+        else if(spikeMark == PropProcessor.RIGHT)
+            spikeX += SPIKE_MARK_OFFSET;
 
         waitForStart();
+        drivetrain.setVoltageCompensation(battery.getCompensation());
         timer.reset();
 
         while(opModeIsActive()) {
             while(distance > SPLINE_ERROR && timer.time() < 3) {
-                xy = drivetrain.getXY();
-                distance = Math.sqrt(Math.pow(36 - xy[0], 2) +
-                        Math.pow(-32 - xy[1], 2) );
+                drivetrain.updateWithOdometry();
+                Pose2d pose = drivetrain.getPose();
+                distance = pose.distanceTo(spikeX, -32);
                 double power = distance >= SPLINE_ERROR ? MathUtilities.clip(SPLINE_P * distance
                         , -SPLINE_GOVERNOR, SPLINE_GOVERNOR) : 0.0;
 
-                double angle = 90.0;
+                double angle = Math.toDegrees(Math.atan2(-32 - pose.getY(), spikeX - pose.getX()));
                 drivetrain.setDesiredHeading(90.0);
                 drivetrain.drive(power, angle, 0.0, true, true);
             }
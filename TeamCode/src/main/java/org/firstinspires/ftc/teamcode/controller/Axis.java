@@ -9,7 +9,9 @@ import org.firstinspires.ftc.teamcode.utils.Constants;
  */
 public class Axis implements Constants {
     private final double deadBand;
-    private int numLoopsAtZero;
+    private ResponseCurve curve;
+    private long nonZeroTime;
+    private long currentTime;
     private double value;
 
     /**
@@ -27,7 +29,19 @@ public class Axis implements Constants {
     public Axis(double deadBand) {
         this.value = 0.0;
         this.deadBand = deadBand;
-        this.numLoopsAtZero = 0;
+        this.nonZeroTime = 0;
+        this.currentTime = 0;
+    }
+
+    /**
+     * Shapes the axis's values with a response curve, applied after the deadBand.
+     * For a stick used in two axes, shape the stick's magnitude with
+     * GameController's stick curves instead so diagonals are not distorted.
+     *
+     * @param curve the curve, null for a linear response
+     */
+    public void setCurve(ResponseCurve curve) {
+        this.curve = curve;
     }
 
     /**
@@ -40,23 +54,37 @@ public class Axis implements Constants {
     }
 
     /**
-     * Whether the Axis has been zero for
-     * a specified number of teleop loop() iterations
+     * Whether the Axis has been zero for AXIS_ZERO_TIME,
+     * independent of how fast the loop runs
      *
-     * @return true iff the Axis has been zero for enough code loops
+     * @return true iff the Axis has been zero for long enough
      */
     public boolean wasZeroLongEnough() {
-        return numLoopsAtZero >= LOOPS_TO_WAIT;
+        return value == 0 && getTimeAtZero() >= AXIS_ZERO_TIME;
+    }
+
+    /**
+     * How long the Axis has been zero
+     *
+     * @return the time in seconds, 0 if it is not zero
+     */
+    public double getTimeAtZero() {
+        return value == 0 ? (currentTime - nonZeroTime) * 1.0E-9 : 0.0;
     }
 
     /**
-     * Updates the axis's current and previous values
+     * Updates the axis's current value
      *
      * @param newValue the value to set the current value to
+     * @param timeNanos the System.nanoTime() the value was read
      */
-    public void updateStates(double newValue) {
+    public void updateStates(double newValue, long timeNanos) {
         value = applyDeadBand(newValue);
-        numLoopsAtZero = value == 0 ? numLoopsAtZero + 1 : 0;
+        if(curve != null)
+            value = curve.apply(value);
+        currentTime = timeNanos;
+        if(value != 0)
+            nonZeroTime = timeNanos;
     }
 
     private double applyDeadBand(double value) {
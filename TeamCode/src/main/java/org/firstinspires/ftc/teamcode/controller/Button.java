@@ -2,13 +2,20 @@ package org.firstinspires.ftc.teamcode.controller;
 
 import androidx.annotation.NonNull;
 
+import org.firstinspires.ftc.teamcode.utils.Constants;
+
 /**
  * The class defining Buttons on a GameController
  */
-public class Button {
+public class Button implements Constants {
     private boolean state;
     private boolean previousState;
     private boolean toggleState;
+    private boolean doubleTapped;
+    private long changeTime;
+    private long pressTime;
+    private long tapTime;
+    private long currentTime;
 
     /**
      * Creates a Button Object
@@ -47,13 +54,55 @@ public class Button {
     }
 
     /**
-     * Updates the button's current and previous states
+     * Whether the button was just pressed within BUTTON_DOUBLE_TAP_TIME of its last press
+     *
+     * @return true on the loop the second press of a double tap arrives
+     */
+    public boolean wasDoubleTapped() {
+        return doubleTapped;
+    }
+
+    /**
+     * How long the button has been pressed
+     *
+     * @return the time in seconds, 0 if it is not pressed
+     */
+    public double getHoldTime() {
+        return state ? (currentTime - pressTime) * 1.0E-9 : 0.0;
+    }
+
+    /**
+     * Whether the button has been pressed for a time
+     *
+     * @param seconds the time in seconds
+     *
+     * @return true if the button has been held at least that long
+     */
+    public boolean wasHeldFor(double seconds) {
+        return state && getHoldTime() >= seconds;
+    }
+
+    /**
+     * Updates the button's current and previous states. A change within
+     * BUTTON_DEBOUNCE_TIME of the last one is ignored as contact bounce.
      *
      * @param newState the state to set the current state to
+     * @param timeNanos the System.nanoTime() the state was read
      */
-    public void updateStates(boolean newState) {
+    public void updateStates(boolean newState, long timeNanos) {
         previousState = state;
-        state = newState;
+        currentTime = timeNanos;
+        doubleTapped = false;
+        if(newState != state && (changeTime == 0 || (timeNanos - changeTime) * 1.0E-9 >= BUTTON_DEBOUNCE_TIME)) {
+            state = newState;
+            changeTime = timeNanos;
+            if(state) {
+                pressTime = timeNanos;
+                doubleTapped = tapTime != 0 && (timeNanos - tapTime) * 1.0E-9 <= BUTTON_DOUBLE_TAP_TIME;
+                // a third quick press starts a new double tap rather than completing another
+                tapTime = doubleTapped ? 0 : timeNanos;
+            }
+        }
         toggleState = (state && !previousState) != toggleState;
     }
 
@@ -2,13 +2,59 @@ package org.firstinspires.ftc.teamcode.controller;
 
 import com.qualcomm.robotcore.hardware.Gamepad;
 
+import org.firstinspires.ftc.teamcode.logging.MatchRecorder;
+import org.firstinspires.ftc.teamcode.utils.Constants;
 import org.firstinspires.ftc.teamcode.utils.MathUtilities;
 
+import java.util.ArrayList;
+
 /**
  * The Class defining a GameController
+ * <p>
+ * Controls can be bound to buttons or chords of buttons with onPress,
+ * onRelease, whileHeld and toggle. The buttons are packed into a bit mask
+ * in updateValues(), and the bindings are compiled into flat arrays indexed
+ * by button, so a loop only checks the bindings of buttons that changed.
  */
-public class GameController {
+public class GameController implements Constants {
+    /** Handles a toggle binding */
+    public interface ToggleHandler {
+        /**
+         * Called each time the toggle flips
+         *
+         * @param state the new toggle state, true after the first press
+         */
+        void onToggle(boolean state);
+    }
+
+    private static final int PRESS = 0;
+    private static final int RELEASE = 1;
+    private static final int HELD = 2;
+    private static final int TOGGLE = 3;
+
     private final Gamepad gamepad;
+    private final Button[] buttons;
+    private final ArrayList<Object> handlers;
+    private final ArrayList<Integer> kinds;
+    private final ArrayList<Integer> masks;
+    private boolean compiled;
+    private int buttonStates;
+    private int loopCount;
+    private Object[] handlerTable;
+    private int[] kindTable;
+    private int[] maskTable;
+    private boolean[] toggleStates;
+    private int[] lastChecked;
+    private int[] edgeStart;
+    private int[] edgeBindings;
+    private int[] heldBindings;
+    private MatchRecorder recorder;
+    private int controller;
+    private long packetTimestamp;
+    private long packetSeenTime;
+    private final double[] stick = new double[2];
+    private ResponseCurve leftStickCurve;
+    private ResponseCurve rightStickCurve;
     public Button y;
     public Button x;
     public Button b;
@@ -59,17 +105,199 @@ public class GameController {
         right_stick_y = new Axis();
         right_trigger = new Axis();
         left_trigger = new Axis();
+
+        // in the same order as updateValues(), each button's index is its bit
+        buttons = new Button[] {y, x, b, a, dpad_up, dpad_down, dpad_left, dpad_right, left_bumper,
+                right_bumper, start, back, right_stick_button, left_stick_button};
+        handlers = new ArrayList<>();
+        kinds = new ArrayList<>();
+        masks = new ArrayList<>();
+    }
+
+    /**
+     * Records every new packet from the gamepad to a match log,
+     * for replaying with GamepadReplay
+     *
+     * @param recorder the recorder, null to stop recording
+     * @param controller the controller number to record, 0 for the driver and 1 for the operator
+     */
+    public void setRecorder(MatchRecorder recorder, int controller) {
+        this.recorder = recorder;
+        this.controller = controller;
+    }
+
+    /**
+     * Shapes the left stick with a response curve applied to its magnitude,
+     * so the stick's direction is kept and diagonals are shaped like the axes
+     *
+     * @param curve the curve, null for a linear response
+     */
+    public void setLeftStickCurve(ResponseCurve curve) {
+        leftStickCurve = curve;
+    }
+
+    /**
+     * Shapes the right stick with a response curve applied to its magnitude
+     *
+     * @param curve the curve, null for a linear response
+     */
+    public void setRightStickCurve(ResponseCurve curve) {
+        rightStickCurve = curve;
+    }
+
+    /**
+     * The driver station's timestamp of the latest gamepad packet
+     *
+     * @return the Gamepad.timestamp in milliseconds on the driver station's clock
+     */
+    public long getPacketTimestamp() {
+        return packetTimestamp;
+    }
+
+    /**
+     * When updateValues() first saw the latest gamepad packet
+     *
+     * @return the System.nanoTime() of the update
+     */
+    public long getPacketSeenTime() {
+        return packetSeenTime;
+    }
+
+    /**
+     * Runs a handler when a button or chord becomes pressed
+     *
+     * @param handler the handler
+     * @param chord the buttons that must all be pressed
+     */
+    public void onPress(Runnable handler, Button... chord) {
+        bind(PRESS, handler, chord);
+    }
+
+    /**
+     * Runs a handler when a button or chord stops being pressed
+     *
+     * @param handler the handler
+     * @param chord the buttons that must all have been pressed
+     */
+    public void onRelease(Runnable handler, Button... chord) {
+        bind(RELEASE, handler, chord);
+    }
+
+    /**
+     * Runs a handler every loop while a button or chord is pressed.
+     * Held bindings run in the order they were bound.
+     *
+     * @param handler the handler
+     * @param chord the buttons that must all be pressed
+     */
+    public void whileHeld(Runnable handler, Button... chord) {
+        bind(HELD, handler, chord);
+    }
+
+    /**
+     * Flips a state each time a button or chord becomes pressed
+     *
+     * @param handler the handler, given the new state
+     * @param chord the buttons that must all be pressed
+     */
+    public void toggle(ToggleHandler handler, Button... chord) {
+        bind(TOGGLE, handler, chord);
+    }
+
+    private void bind(int kind, Object handler, Button... chord) {
+        int mask = 0;
+        for(Button button : chord)
+            for(int bit = 0; bit < buttons.length; bit++)
+                if(buttons[bit] == button)
+                    mask |= 1 << bit;
+        if(mask == 0)
+            throw new IllegalArgumentException("a binding needs a button from this GameController");
+        handlers.add(handler);
+        kinds.add(kind);
+        masks.add(mask);
+        compiled = false;
+    }
+
+    private void compile() {
+        int numBindings = handlers.size();
+        handlerTable = handlers.toArray();
+        kindTable = new int[numBindings];
+        maskTable = new int[numBindings];
+        toggleStates = new boolean[numBindings];
+        lastChecked = new int[numBindings];
+        int numHeld = 0;
+        int numEdges = 0;
+        for(int i = 0; i < numBindings; i++) {
+            kindTable[i] = kinds.get(i);
+            maskTable[i] = masks.get(i);
+            if(kindTable[i] == HELD)
+                numHeld++;
+            else
+                numEdges += Integer.bitCount(maskTable[i]);
+        }
+
+        // edge bindings listed under every button of their chord, grouped by button
+        heldBindings = new int[numHeld];
+        edgeBindings = new int[numEdges];
+        edgeStart = new int[buttons.length + 1];
+        numHeld = 0;
+        numEdges = 0;
+        for(int bit = 0; bit < buttons.length; bit++) {
+            edgeStart[bit] = numEdges;
+            for(int i = 0; i < numBindings; i++)
+                if(kindTable[i] != HELD && (maskTable[i] & 1 << bit) != 0)
+                    edgeBindings[numEdges++] = i;
+        }
+        edgeStart[buttons.length] = numEdges;
+        for(int i = 0; i < numBindings; i++)
+            if(kindTable[i] == HELD)
+                heldBindings[numHeld++] = i;
+        compiled = true;
+    }
+
+    private void dispatch(int previousStates) {
+        if(!compiled)
+            compile();
+        loopCount++;
+
+        int changed = buttonStates ^ previousStates;
+        while(changed != 0) {
+            int bit = Integer.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            for(int j = edgeStart[bit]; j < edgeStart[bit + 1]; j++) {
+                int i = edgeBindings[j];
+                // a chord is listed under each of its buttons, check it once
+                if(lastChecked[i] == loopCount)
+                    continue;
+                lastChecked[i] = loopCount;
+
+                boolean wasPressed = (previousStates & maskTable[i]) == maskTable[i];
+                boolean isPressed = (buttonStates & maskTable[i]) == maskTable[i];
+                if(kindTable[i] == PRESS && isPressed && !wasPressed)
+                    ((Runnable) handlerTable[i]).run();
+                else if(kindTable[i] == RELEASE && wasPressed && !isPressed)
+                    ((Runnable) handlerTable[i]).run();
+                else if(kindTable[i] == TOGGLE && isPressed && !wasPressed) {
+                    toggleStates[i] = !toggleStates[i];
+                    ((ToggleHandler) handlerTable[i]).onToggle(toggleStates[i]);
+                }
+            }
+        }
+
+        for(int i : heldBindings)
+            if((buttonStates & maskTable[i]) == maskTable[i])
+                ((Runnable) handlerTable[i]).run();
     }
 
     /**
      * The R from the (R, theta) of the Left Joystick
      *
-     * @return the radius in the range [-1, 1]
+     * @return the radius in the range [0, 1]
      */
     public double leftStickRadius() {
         double x = left_stick_x.get();
         double y = left_stick_y.get();
-        return MathUtilities.clip(Math.sqrt(x * x + y * y), -1.0, 1.0);
+        return MathUtilities.clip(Math.sqrt(x * x + y * y), 0.0, 1.0);
     }
 
     /**
@@ -85,30 +313,68 @@ public class GameController {
             return MathUtilities.addAngles(Math.toDegrees(Math.atan2(left_stick_y.get(), left_stick_x.get())), -180.0);
     }
 
+    // the stick reports a square, so its magnitude is the larger component rather
+    // than the length, then the deadband is cut out, the rest rescaled to [0, 1]
+    // and shaped by the curve, keeping the direction
+    private void applyRadialDeadBand(double x, double y, ResponseCurve curve) {
+        double length = Math.sqrt(x * x + y * y);
+        double magnitude = Math.min(Math.max(Math.abs(x), Math.abs(y)), 1.0);
+        if(magnitude < STICK_DEADBAND) {
+            stick[0] = 0.0;
+            stick[1] = 0.0;
+            return;
+        }
+        double rescaled = (magnitude - STICK_DEADBAND) / (1.0 - STICK_DEADBAND);
+        if(curve != null)
+            rescaled = curve.apply(rescaled);
+        double scale = rescaled / length;
+        stick[0] = x * scale;
+        stick[1] = y * scale;
+    }
+
     /**
-     * updates the GameController fields, call at the start of each loop() cycle
+     * updates the GameController fields and runs the bindings of any buttons
+     * that changed, call at the start of each loop() cycle
      */
     public void updateValues() {
-        y.updateStates(gamepad.y);
-        x.updateStates(gamepad.x);
-        b.updateStates(gamepad.b);
-        a.updateStates(gamepad.a);
-        dpad_up.updateStates(gamepad.dpad_up);
-        dpad_down.updateStates(gamepad.dpad_down);
-        dpad_left.updateStates(gamepad.dpad_left);
-        dpad_right.updateStates(gamepad.dpad_right);
-        left_bumper.updateStates(gamepad.left_bumper);
-        right_bumper.updateStates(gamepad.right_bumper);
-        start.updateStates(gamepad.start);
-        back.updateStates(gamepad.back);
-        right_stick_button.updateStates(gamepad.right_stick_button);
-        left_stick_button.updateStates(gamepad.left_stick_button);
-
-        left_stick_x.updateStates(gamepad.left_stick_x);
-        left_stick_y.updateStates(-gamepad.left_stick_y);
-        right_stick_x.updateStates(gamepad.right_stick_x);
-        right_stick_y.updateStates(-gamepad.right_stick_y);
-        right_trigger.updateStates(gamepad.right_trigger);
-        left_trigger.updateStates(gamepad.left_trigger);
+        long now = System.nanoTime();
+        // the gamepad only changes when a new packet arrives, with a new timestamp
+        if(gamepad.timestamp != packetTimestamp) {
+            packetTimestamp = gamepad.timestamp;
+            packetSeenTime = now;
+            if(recorder != null)
+                recorder.recordGamepad(now, controller, gamepad);
+        }
+
+        y.updateStates(gamepad.y, now);
+        x.updateStates(gamepad.x, now);
+        b.updateStates(gamepad.b, now);
+        a.updateStates(gamepad.a, now);
+        dpad_up.updateStates(gamepad.dpad_up, now);
+        dpad_down.updateStates(gamepad.dpad_down, now);
+        dpad_left.updateStates(gamepad.dpad_left, now);
+        dpad_right.updateStates(gamepad.dpad_right, now);
+        left_bumper.updateStates(gamepad.left_bumper, now);
+        right_bumper.updateStates(gamepad.right_bumper, now);
+        start.updateStates(gamepad.start, now);
+        back.updateStates(gamepad.back, now);
+        right_stick_button.updateStates(gamepad.right_stick_button, now);
+        left_stick_button.updateStates(gamepad.left_stick_button, now);
+
+        applyRadialDeadBand(gamepad.left_stick_x, -gamepad.left_stick_y, leftStickCurve);
+        left_stick_x.updateStates(stick[0], now);
+        left_stick_y.updateStates(stick[1], now);
+        applyRadialDeadBand(gamepad.right_stick_x, -gamepad.right_stick_y, rightStickCurve);
+        right_stick_x.updateStates(stick[0], now);
+        right_stick_y.updateStates(stick[1], now);
+        right_trigger.updateStates(gamepad.right_trigger, now);
+        left_trigger.updateStates(gamepad.left_trigger, now);
+
+        int previousStates = buttonStates;
+        buttonStates = 0;
+        for(int bit = 0; bit < buttons.length; bit++)
+            if(buttons[bit].get())
+                buttonStates |= 1 << bit;
+        dispatch(previousStates);
     }
 }
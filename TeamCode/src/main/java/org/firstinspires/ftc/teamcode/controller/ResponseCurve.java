@@ -0,0 +1,75 @@
+package org.firstinspires.ftc.teamcode.controller;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+
+/**
+ * A response curve for a controller axis, mapping the stick's magnitude
+ * [0, 1] to an output [0, 1] with the sign kept. The curve is sampled once
+ * into a small table, so shaping a value is a lookup and a linear interpolation.
+ */
+public class ResponseCurve implements Constants {
+    private final float[] table;
+
+    private ResponseCurve(float[] table) {
+        this.table = table;
+    }
+
+    /**
+     * An expo curve, a blend of linear and cubic that softens small inputs
+     * but still reaches full output
+     *
+     * @param expo how much cubic to blend in [0, 1], 0 is linear
+     *
+     * @return the curve
+     */
+    public static ResponseCurve expo(double expo) {
+        float[] table = new float[CURVE_TABLE_SIZE + 1];
+        for(int i = 0; i <= CURVE_TABLE_SIZE; i++) {
+            double input = (double) i / CURVE_TABLE_SIZE;
+            table[i] = (float) ((1.0 - expo) * input + expo * input * input * input);
+        }
+        return new ResponseCurve(table);
+    }
+
+    /**
+     * A piecewise linear curve through a set of points. The curve starts
+     * at (0, 0) and ends at (1, 1) so full stick is always full output.
+     *
+     * @param inputs the input of each point, increasing in (0, 1)
+     * @param outputs the output of each point in [0, 1]
+     *
+     * @return the curve
+     */
+    public static ResponseCurve piecewise(double[] inputs, double[] outputs) {
+        if(inputs.length != outputs.length)
+            throw new IllegalArgumentException("a curve needs an output for every input");
+        float[] table = new float[CURVE_TABLE_SIZE + 1];
+        int segment = 0;
+        for(int i = 0; i <= CURVE_TABLE_SIZE; i++) {
+            double input = (double) i / CURVE_TABLE_SIZE;
+            while(segment < inputs.length && inputs[segment] <= input)
+                segment++;
+            double startInput = segment == 0 ? 0.0 : inputs[segment - 1];
+            double startOutput = segment == 0 ? 0.0 : outputs[segment - 1];
+            double endInput = segment == inputs.length ? 1.0 : inputs[segment];
+            double endOutput = segment == inputs.length ? 1.0 : outputs[segment];
+            double fraction = endInput > startInput ? (input - startInput) / (endInput - startInput) : 0.0;
+            table[i] = (float) (startOutput + fraction * (endOutput - startOutput));
+        }
+        return new ResponseCurve(table);
+    }
+
+    /**
+     * Shapes an axis value
+     *
+     * @param value the value [-1, 1]
+     *
+     * @return the shaped value [-1, 1]
+     */
+    public double apply(double value) {
+        double index = Math.min(Math.abs(value), 1.0) * CURVE_TABLE_SIZE;
+        int lower = Math.min((int) index, CURVE_TABLE_SIZE - 1);
+        double shaped = table[lower] + (index - lower) * (table[lower + 1] - table[lower]);
+        return value < 0.0 ? -shaped : shaped;
+    }
+}
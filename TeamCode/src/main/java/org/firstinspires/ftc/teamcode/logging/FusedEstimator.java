@@ -0,0 +1,94 @@
+package org.firstinspires.ftc.teamcode.logging;
+
+import org.firstinspires.ftc.teamcode.robot.FieldLayout;
+import org.firstinspires.ftc.teamcode.robot.Odometry;
+import org.firstinspires.ftc.teamcode.robot.SlipDetector;
+import org.firstinspires.ftc.teamcode.robot.TagLocalizer;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
+import org.firstinspires.ftc.teamcode.utils.Twist2d;
+
+/**
+ * The robot's own pose estimation, odometry fused with April Tags the
+ * same way Drivetrain and Vision do it, for replay. Vision can be
+ * turned off to compare against odometry alone.
+ */
+public class FusedEstimator implements PoseEstimator {
+    private final String name;
+    private final boolean useVision;
+    private final Odometry odometry;
+    private final SlipDetector slipDetector;
+    private final TagLocalizer localizer;
+    private Pose2d pose;
+    private long previousOdometryTime;
+    private double deadVx, deadVy;
+
+    /**
+     * Creates the estimator
+     *
+     * @param name the name for reports
+     * @param startingPose the pose the robot started the log at
+     * @param useVision whether to fuse April Tag detections
+     * @param layout the field's tag layout
+     */
+    public FusedEstimator(String name, Pose2d startingPose, boolean useVision, FieldLayout layout) {
+        this.name = name;
+        this.useVision = useVision;
+        this.pose = startingPose;
+        odometry = new Odometry();
+        slipDetector = new SlipDetector();
+        localizer = new TagLocalizer(layout);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void onOdometry(long timeNanos, int left, int right, int center) {
+        applyVision();
+
+        Twist2d twist = odometry.update(left, right, center);
+        pose = pose.exp(twist);
+
+        if(previousOdometryTime != 0) {
+            double dt = (timeNanos - previousOdometryTime) * 1.0E-9;
+            deadVx = twist.getDx() / dt;
+            deadVy = twist.getDy() / dt;
+        }
+        previousOdometryTime = timeNanos;
+    }
+
+    @Override
+    public void onDriveVelocities(long timeNanos, double backLeft, double backRight, double frontLeft,
+                                  double frontRight, double cmdBackLeft, double cmdBackRight,
+                                  double cmdFrontLeft, double cmdFrontRight) {
+        slipDetector.update(cmdBackLeft, cmdBackRight, cmdFrontLeft, cmdFrontRight,
+                backLeft, backRight, frontLeft, frontRight, deadVx, deadVy);
+    }
+
+    @Override
+    public void onTag(long timeNanos, boolean isFrontCam, int id, double range, double bearing, double yaw) {
+        if(useVision)
+            localizer.addDetection(id, range, bearing, yaw, isFrontCam);
+    }
+
+    @Override
+    public void finish() {
+        applyVision();
+    }
+
+    @Override
+    public Pose2d getPose() {
+        return pose;
+    }
+
+    private void applyVision() {
+        Pose2d visionPose = localizer.getPose();
+        if(visionPose != null) {
+            pose = pose.interpolate(visionPose, slipDetector.getVisionTrust());
+            slipDetector.confirmPose();
+        }
+        localizer.reset();
+    }
+}
@@ -0,0 +1,112 @@
+package org.firstinspires.ftc.teamcode.logging;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+/**
+ * Plays one controller's recorded GAMEPAD records back into a Gamepad, so
+ * a GameController built on getGamepad() drives the robot exactly as the
+ * driver did. Records are applied at their recorded times scaled by a speed
+ * factor. The SDK's Gamepad needs the robot, so replay only runs there.
+ */
+public class GamepadReplay {
+    private final MatchLog log;
+    private final int controller;
+    private final double speed;
+    private final Gamepad gamepad;
+    private final long logStart;
+    private long replayStart;
+    private long next;
+
+    /**
+     * Creates a replay of one controller
+     *
+     * @param log the recorded log
+     * @param controller the controller to replay, 0 for the driver and 1 for the operator
+     * @param speed how much faster than real time to replay, 1 for real time
+     */
+    public GamepadReplay(MatchLog log, int controller, double speed) {
+        this.log = log;
+        this.controller = controller;
+        this.speed = speed;
+        this.gamepad = new Gamepad();
+        if(log.getNumRecords() > 0) {
+            log.seek(0);
+            logStart = log.getTimeNanos();
+        }
+        else
+            logStart = 0;
+        next = findNext(0);
+    }
+
+    /**
+     * The gamepad the replay writes to, give it to a GameController
+     *
+     * @return the gamepad
+     */
+    public Gamepad getGamepad() {
+        return gamepad;
+    }
+
+    /**
+     * Applies every record due by now, call before GameController.updateValues()
+     *
+     * @param nowNanos the System.nanoTime() of the loop, the first call starts the replay
+     */
+    public void update(long nowNanos) {
+        if(replayStart == 0)
+            replayStart = nowNanos;
+        double logElapsed = (nowNanos - replayStart) * speed;
+        while(next < log.getNumRecords()) {
+            log.seek(next);
+            if(log.getTimeNanos() - logStart > logElapsed)
+                return;
+            apply();
+            next = findNext(next + 1);
+        }
+    }
+
+    /**
+     * Whether every record has been applied
+     *
+     * @return true once the replay has finished
+     */
+    public boolean isFinished() {
+        return next >= log.getNumRecords();
+    }
+
+    private long findNext(long index) {
+        for(long i = index; i < log.getNumRecords(); i++) {
+            log.seek(i);
+            if(log.getType() == MatchLog.TYPE_GAMEPAD && log.getInt(0) == controller)
+                return i;
+        }
+        return log.getNumRecords();
+    }
+
+    // the bit order of MatchRecorder.packButtons
+    private void apply() {
+        int buttons = log.getInt(4);
+        gamepad.a = (buttons & 1) != 0;
+        gamepad.b = (buttons & 1 << 1) != 0;
+        gamepad.x = (buttons & 1 << 2) != 0;
+        gamepad.y = (buttons & 1 << 3) != 0;
+        gamepad.dpad_up = (buttons & 1 << 4) != 0;
+        gamepad.dpad_down = (buttons & 1 << 5) != 0;
+        gamepad.dpad_left = (buttons & 1 << 6) != 0;
+        gamepad.dpad_right = (buttons & 1 << 7) != 0;
+        gamepad.left_bumper = (buttons & 1 << 8) != 0;
+        gamepad.right_bumper = (buttons & 1 << 9) != 0;
+        gamepad.start = (buttons & 1 << 10) != 0;
+        gamepad.back = (buttons & 1 << 11) != 0;
+        gamepad.left_stick_button = (buttons & 1 << 12) != 0;
+        gamepad.right_stick_button = (buttons & 1 << 13) != 0;
+        gamepad.guide = (buttons & 1 << 14) != 0;
+        gamepad.left_stick_x = log.getFloat(8);
+        gamepad.left_stick_y = log.getFloat(12);
+        gamepad.right_stick_x = log.getFloat(16);
+        gamepad.right_stick_y = log.getFloat(20);
+        gamepad.left_trigger = log.getFloat(24);
+        gamepad.right_trigger = log.getFloat(28);
+        gamepad.timestamp = log.getLong(32);
+    }
+}
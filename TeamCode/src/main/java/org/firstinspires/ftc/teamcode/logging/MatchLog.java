@@ -0,0 +1,136 @@
+package org.firstinspires.ftc.teamcode.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a log written by the MatchRecorder.
+ * <p>
+ * The file is a 16 byte header (magic, version, record count) followed by
+ * fixed-width little-endian records of RECORD_SIZE bytes. Every record starts
+ * with an int type and a long System.nanoTime() timestamp, followed by:
+ * <ul>
+ *     <li>ODOMETRY: int left, right, center dead wheel ticks</li>
+ *     <li>DRIVE: float measured bl, br, fl, fr then commanded bl, br, fl, fr in ticks/second</li>
+ *     <li>GAMEPAD: int controller, int button bits, float lx, ly, rx, ry, lt, rt, long gamepad timestamp</li>
+ *     <li>TAG: int camera, int id, float range, bearing, yaw, x, y, decisionMargin, long frame time</li>
+ *     <li>GROUND_TRUTH: float x, y, heading of the known robot pose</li>
+ *     <li>VISION_HEALTH: int camera, float fps, latency ms, detections/s, int rejected tags, float seconds since a good pose</li>
+ *     <li>INPUT_LATENCY: long gamepad timestamp, long time the packet was seen, long time the drive motors were commanded</li>
+ * </ul>
+ * Read a record by moving to it with seek and using the typed getters.
+ */
+public class MatchLog {
+    public static final int MAGIC = 0x474F424F;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 64;
+    public static final int PAYLOAD_OFFSET = 12;
+
+    public static final int TYPE_ODOMETRY = 1;
+    public static final int TYPE_DRIVE = 2;
+    public static final int TYPE_GAMEPAD = 3;
+    public static final int TYPE_TAG = 4;
+    public static final int TYPE_GROUND_TRUTH = 5;
+    public static final int TYPE_VISION_HEALTH = 6;
+    public static final int TYPE_INPUT_LATENCY = 7;
+
+    public static final int FRONT_CAM = 0;
+    public static final int BACK_CAM = 1;
+
+    private final MappedByteBuffer buffer;
+    private final long numRecords;
+    private int position;
+
+    /**
+     * Opens a recorded log
+     *
+     * @param logFile the file written by a MatchRecorder
+     *
+     * @throws IOException if the file cannot be read or is not a match log
+     */
+    public MatchLog(File logFile) throws IOException {
+        try(RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.getInt(0) != MAGIC)
+            throw new IOException(logFile + " is not a match log");
+        if(buffer.getInt(4) != VERSION)
+            throw new IOException(logFile + " has unsupported version " + buffer.getInt(4));
+        numRecords = buffer.getLong(8);
+    }
+
+    /**
+     * The number of records in the log
+     *
+     * @return the number of records
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Moves to a record
+     *
+     * @param index the record index [0, getNumRecords())
+     */
+    public void seek(long index) {
+        position = (int) (HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    /**
+     * The type of the current record
+     *
+     * @return one of the TYPE constants
+     */
+    public int getType() {
+        return buffer.getInt(position);
+    }
+
+    /**
+     * The timestamp of the current record
+     *
+     * @return the System.nanoTime() when the record was written
+     */
+    public long getTimeNanos() {
+        return buffer.getLong(position + 4);
+    }
+
+    /**
+     * Reads an int field of the current record's payload
+     *
+     * @param offset the byte offset within the payload
+     *
+     * @return the value
+     */
+    public int getInt(int offset) {
+        return buffer.getInt(position + PAYLOAD_OFFSET + offset);
+    }
+
+    /**
+     * Reads a float field of the current record's payload
+     *
+     * @param offset the byte offset within the payload
+     *
+     * @return the value
+     */
+    public float getFloat(int offset) {
+        return buffer.getFloat(position + PAYLOAD_OFFSET + offset);
+    }
+
+    /**
+     * Reads a long field of the current record's payload
+     *
+     * @param offset the byte offset within the payload
+     *
+     * @return the value
+     */
+    public long getLong(int offset) {
+        return buffer.getLong(position + PAYLOAD_OFFSET + offset);
+    }
+}
@@ -0,0 +1,291 @@
+package org.firstinspires.ftc.teamcode.logging;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Records raw sensor and driver input into a memory-mapped match log,
+ * see MatchLog for the record layout
+ */
+public class MatchRecorder implements Constants {
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private long numRecords;
+    private int droppedRecords;
+
+    /**
+     * Creates a recorder writing to a new file in the recording directory,
+     * deleting the oldest logs there so at most RECORDING_MAX_FILES are kept
+     *
+     * @param name the name of the log, a timestamp is appended
+     *
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public MatchRecorder(String name) throws IOException {
+        this(newLogFile(name));
+    }
+
+    private static File newLogFile(String name) {
+        File directory = new File(RECORDING_DIRECTORY);
+        File[] logs = directory.listFiles((dir, fileName) -> fileName.endsWith(".bin"));
+        if(logs != null && logs.length >= RECORDING_MAX_FILES) {
+            Arrays.sort(logs, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+            for(int i = 0; i <= logs.length - RECORDING_MAX_FILES; i++)
+                if(!logs[i].delete())
+                    break;
+        }
+        return new File(directory, name + "-" + System.currentTimeMillis() + ".bin");
+    }
+
+    /**
+     * Creates a recorder writing to the given file
+     *
+     * @param logFile the file to record to, overwritten if it exists
+     *
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public MatchRecorder(File logFile) throws IOException {
+        File parent = logFile.getParentFile();
+        if(parent != null && !parent.exists() && !parent.mkdirs())
+            throw new IOException("Could not create " + parent);
+
+        file = new RandomAccessFile(logFile, "rw");
+        capacity = (RECORDER_CAPACITY_BYTES - MatchLog.HEADER_SIZE) / MatchLog.RECORD_SIZE;
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, RECORDER_CAPACITY_BYTES);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(0, MatchLog.MAGIC);
+        buffer.putInt(4, MatchLog.VERSION);
+        buffer.putLong(8, 0L);
+    }
+
+    /**
+     * Records the raw dead wheel positions
+     *
+     * @param timeNanos the System.nanoTime() of the reading
+     * @param left the left dead wheel position in ticks
+     * @param right the right dead wheel position in ticks
+     * @param center the center dead wheel position in ticks
+     */
+    public void recordOdometry(long timeNanos, int left, int right, int center) {
+        int position = begin(MatchLog.TYPE_ODOMETRY, timeNanos);
+        if(position < 0)
+            return;
+        buffer.putInt(position, left);
+        buffer.putInt(position + 4, right);
+        buffer.putInt(position + 8, center);
+        end();
+    }
+
+    /**
+     * Records the measured and commanded drive motor velocities
+     *
+     * @param timeNanos the System.nanoTime() of the reading
+     * @param backLeft the measured back left velocity in ticks/second
+     * @param backRight the measured back right velocity in ticks/second
+     * @param frontLeft the measured front left velocity in ticks/second
+     * @param frontRight the measured front right velocity in ticks/second
+     * @param cmdBackLeft the commanded back left velocity in ticks/second
+     * @param cmdBackRight the commanded back right velocity in ticks/second
+     * @param cmdFrontLeft the commanded front left velocity in ticks/second
+     * @param cmdFrontRight the commanded front right velocity in ticks/second
+     */
+    public void recordDriveVelocities(long timeNanos, double backLeft, double backRight, double frontLeft,
+                                      double frontRight, double cmdBackLeft, double cmdBackRight,
+                                      double cmdFrontLeft, double cmdFrontRight) {
+        int position = begin(MatchLog.TYPE_DRIVE, timeNanos);
+        if(position < 0)
+            return;
+        buffer.putFloat(position, (float) backLeft);
+        buffer.putFloat(position + 4, (float) backRight);
+        buffer.putFloat(position + 8, (float) frontLeft);
+        buffer.putFloat(position + 12, (float) frontRight);
+        buffer.putFloat(position + 16, (float) cmdBackLeft);
+        buffer.putFloat(position + 20, (float) cmdBackRight);
+        buffer.putFloat(position + 24, (float) cmdFrontLeft);
+        buffer.putFloat(position + 28, (float) cmdFrontRight);
+        end();
+    }
+
+    /**
+     * Records the raw state of a gamepad
+     *
+     * @param timeNanos the System.nanoTime() of the reading
+     * @param controller 0 for the driver, 1 for the operator
+     * @param gamepad the gamepad to record
+     */
+    public void recordGamepad(long timeNanos, int controller, Gamepad gamepad) {
+        int position = begin(MatchLog.TYPE_GAMEPAD, timeNanos);
+        if(position < 0)
+            return;
+        buffer.putInt(position, controller);
+        buffer.putInt(position + 4, packButtons(gamepad));
+        buffer.putFloat(position + 8, gamepad.left_stick_x);
+        buffer.putFloat(position + 12, gamepad.left_stick_y);
+        buffer.putFloat(position + 16, gamepad.right_stick_x);
+        buffer.putFloat(position + 20, gamepad.right_stick_y);
+        buffer.putFloat(position + 24, gamepad.left_trigger);
+        buffer.putFloat(position + 28, gamepad.right_trigger);
+        buffer.putLong(position + 32, gamepad.timestamp);
+        end();
+    }
+
+    /**
+     * Records a single April Tag detection
+     *
+     * @param timeNanos the System.nanoTime() the detection was used
+     * @param isFrontCam whether the detection came from the front camera
+     * @param detection the detection to record
+     */
+    public void recordTag(long timeNanos, boolean isFrontCam, AprilTagDetection detection) {
+        int position = begin(MatchLog.TYPE_TAG, timeNanos);
+        if(position < 0)
+            return;
+        buffer.putInt(position, isFrontCam ? MatchLog.FRONT_CAM : MatchLog.BACK_CAM);
+        buffer.putInt(position + 4, detection.id);
+        buffer.putFloat(position + 8, (float) detection.ftcPose.range);
+        buffer.putFloat(position + 12, (float) detection.ftcPose.bearing);
+        buffer.putFloat(position + 16, (float) detection.ftcPose.yaw);
+        buffer.putFloat(position + 20, (float) detection.ftcPose.x);
+        buffer.putFloat(position + 24, (float) detection.ftcPose.y);
+        buffer.putFloat(position + 28, detection.decisionMargin);
+        buffer.putLong(position + 32, detection.frameAcquisitionNanoTime);
+        end();
+    }
+
+    /**
+     * Records the known robot pose, for scoring localization in replay
+     *
+     * @param timeNanos the System.nanoTime() the pose applies from
+     * @param x the x coordinate in inches
+     * @param y the y coordinate in inches
+     * @param heading the heading in degrees
+     */
+    public void recordGroundTruth(long timeNanos, double x, double y, double heading) {
+        int position = begin(MatchLog.TYPE_GROUND_TRUTH, timeNanos);
+        if(position < 0)
+            return;
+        buffer.putFloat(position, (float) x);
+        buffer.putFloat(position + 4, (float) y);
+        buffer.putFloat(position + 8, (float) heading);
+        end();
+    }
+
+    /**
+     * Records a camera portal's health metrics
+     *
+     * @param timeNanos the System.nanoTime() the metrics were taken
+     * @param isFrontCam whether the metrics are for the front camera
+     * @param fps the portal's frame rate
+     * @param latency the mean pipeline latency in milliseconds
+     * @param detectionsPerSecond the rate of detections
+     * @param rejected the tag detections rejected so far
+     * @param timeSinceGoodPose the seconds since the camera last contributed to the pose
+     */
+    public void recordVisionHealth(long timeNanos, boolean isFrontCam, double fps, double latency,
+                                   double detectionsPerSecond, int rejected, double timeSinceGoodPose) {
+        int position = begin(MatchLog.TYPE_VISION_HEALTH, timeNanos);
+        if(position < 0)
+            return;
+        buffer.putInt(position, isFrontCam ? MatchLog.FRONT_CAM : MatchLog.BACK_CAM);
+        buffer.putFloat(position + 4, (float) fps);
+        buffer.putFloat(position + 8, (float) latency);
+        buffer.putFloat(position + 12, (float) detectionsPerSecond);
+        buffer.putInt(position + 16, rejected);
+        buffer.putFloat(position + 20, (float) timeSinceGoodPose);
+        end();
+    }
+
+    /**
+     * Records the path of one gamepad packet to the drive motors
+     *
+     * @param timeNanos the System.nanoTime() of the record
+     * @param packetTimestamp the packet's Gamepad.timestamp
+     * @param seenNanos the System.nanoTime() updateValues() first saw the packet
+     * @param commandNanos the System.nanoTime() drive() finished commanding the motors
+     */
+    public void recordInputLatency(long timeNanos, long packetTimestamp, long seenNanos, long commandNanos) {
+        int position = begin(MatchLog.TYPE_INPUT_LATENCY, timeNanos);
+        if(position < 0)
+            return;
+        buffer.putLong(position, packetTimestamp);
+        buffer.putLong(position + 8, seenNanos);
+        buffer.putLong(position + 16, commandNanos);
+        end();
+    }
+
+    /**
+     * The number of records written so far
+     *
+     * @return the number of records
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * The number of records dropped because the file was full
+     *
+     * @return the number of dropped records
+     */
+    public int getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    /**
+     * Flushes the log to storage and closes the file, call in stop()
+     */
+    public void close() {
+        buffer.force();
+        try {
+            file.close();
+        } catch(IOException ignored) {
+            // the mapping has already been forced to storage
+        }
+    }
+
+    private int begin(int type, long timeNanos) {
+        if(numRecords >= capacity) {
+            droppedRecords++;
+            return -1;
+        }
+        int position = (int) (MatchLog.HEADER_SIZE + numRecords * MatchLog.RECORD_SIZE);
+        buffer.putInt(position, type);
+        buffer.putLong(position + 4, timeNanos);
+        return position + MatchLog.PAYLOAD_OFFSET;
+    }
+
+    private void end() {
+        numRecords++;
+        buffer.putLong(8, numRecords);
+    }
+
+    private static int packButtons(Gamepad gamepad) {
+        return (gamepad.a ? 1 : 0)
+                | (gamepad.b ? 1 << 1 : 0)
+                | (gamepad.x ? 1 << 2 : 0)
+                | (gamepad.y ? 1 << 3 : 0)
+                | (gamepad.dpad_up ? 1 << 4 : 0)
+                | (gamepad.dpad_down ? 1 << 5 : 0)
+                | (gamepad.dpad_left ? 1 << 6 : 0)
+                | (gamepad.dpad_right ? 1 << 7 : 0)
+                | (gamepad.left_bumper ? 1 << 8 : 0)
+                | (gamepad.right_bumper ? 1 << 9 : 0)
+                | (gamepad.start ? 1 << 10 : 0)
+                | (gamepad.back ? 1 << 11 : 0)
+                | (gamepad.left_stick_button ? 1 << 12 : 0)
+                | (gamepad.right_stick_button ? 1 << 13 : 0)
+                | (gamepad.guide ? 1 << 14 : 0);
+    }
+}
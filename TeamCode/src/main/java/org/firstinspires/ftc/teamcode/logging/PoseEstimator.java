@@ -0,0 +1,67 @@
+package org.firstinspires.ftc.teamcode.logging;
+
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
+
+/**
+ * A pose estimation algorithm that can be fed recorded streams
+ * by the ReplayEngine, so different algorithms can be compared
+ * on exactly the same match.
+ */
+public interface PoseEstimator {
+    /**
+     * The name of the algorithm, for reports
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Called for each recorded dead wheel reading
+     *
+     * @param timeNanos the time of the reading
+     * @param left the left dead wheel position in ticks
+     * @param right the right dead wheel position in ticks
+     * @param center the center dead wheel position in ticks
+     */
+    void onOdometry(long timeNanos, int left, int right, int center);
+
+    /**
+     * Called for each recorded set of drive motor velocities, in ticks/second
+     *
+     * @param timeNanos the time of the reading
+     * @param backLeft the measured back left velocity
+     * @param backRight the measured back right velocity
+     * @param frontLeft the measured front left velocity
+     * @param frontRight the measured front right velocity
+     * @param cmdBackLeft the commanded back left velocity
+     * @param cmdBackRight the commanded back right velocity
+     * @param cmdFrontLeft the commanded front left velocity
+     * @param cmdFrontRight the commanded front right velocity
+     */
+    void onDriveVelocities(long timeNanos, double backLeft, double backRight, double frontLeft, double frontRight,
+                           double cmdBackLeft, double cmdBackRight, double cmdFrontLeft, double cmdFrontRight);
+
+    /**
+     * Called for each recorded April Tag detection
+     *
+     * @param timeNanos the time the detection was used
+     * @param isFrontCam whether the detection came from the front camera
+     * @param id the tag id
+     * @param range the ftcPose range in inches
+     * @param bearing the ftcPose bearing in degrees
+     * @param yaw the ftcPose yaw in degrees
+     */
+    void onTag(long timeNanos, boolean isFrontCam, int id, double range, double bearing, double yaw);
+
+    /**
+     * Called once after the last record
+     */
+    void finish();
+
+    /**
+     * The current pose estimate
+     *
+     * @return the pose
+     */
+    Pose2d getPose();
+}
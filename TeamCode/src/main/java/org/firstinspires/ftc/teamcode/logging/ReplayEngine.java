@@ -0,0 +1,134 @@
+package org.firstinspires.ftc.teamcode.logging;
+
+import org.firstinspires.ftc.teamcode.robot.FieldLayout;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Replays a recorded match log through one or more PoseEstimators as fast
+ * as the CPU allows, for A/B comparison of localization algorithms off the
+ * robot. Runs on a desktop JVM, the first estimator is the reference the
+ * others are compared against.
+ */
+public class ReplayEngine {
+    private final MatchLog log;
+    private long logNanos;
+    private long replayNanos;
+    private double[] maxDivergence;
+
+    /**
+     * Creates a ReplayEngine for a log
+     *
+     * @param log the recorded log
+     */
+    public ReplayEngine(MatchLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Feeds every record of the log to every estimator in recorded order
+     *
+     * @param estimators the estimators, the first is the reference
+     */
+    public void run(PoseEstimator... estimators) {
+        maxDivergence = new double[estimators.length];
+        long numRecords = log.getNumRecords();
+        long firstTime = 0;
+        long lastTime = 0;
+        long start = System.nanoTime();
+
+        for(long i = 0; i < numRecords; i++) {
+            log.seek(i);
+            long time = log.getTimeNanos();
+            if(i == 0)
+                firstTime = time;
+            lastTime = time;
+
+            switch(log.getType()) {
+                case MatchLog.TYPE_ODOMETRY:
+                    for(PoseEstimator estimator : estimators)
+                        estimator.onOdometry(time, log.getInt(0), log.getInt(4), log.getInt(8));
+                    compare(estimators);
+                    break;
+                case MatchLog.TYPE_DRIVE:
+                    for(PoseEstimator estimator : estimators)
+                        estimator.onDriveVelocities(time, log.getFloat(0), log.getFloat(4), log.getFloat(8),
+                                log.getFloat(12), log.getFloat(16), log.getFloat(20), log.getFloat(24),
+                                log.getFloat(28));
+                    break;
+                case MatchLog.TYPE_TAG:
+                    for(PoseEstimator estimator : estimators)
+                        estimator.onTag(time, log.getInt(0) == MatchLog.FRONT_CAM, log.getInt(4),
+                                log.getFloat(8), log.getFloat(12), log.getFloat(16));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        for(PoseEstimator estimator : estimators)
+            estimator.finish();
+        compare(estimators);
+
+        replayNanos = System.nanoTime() - start;
+        logNanos = lastTime - firstTime;
+    }
+
+    private void compare(PoseEstimator[] estimators) {
+        Pose2d reference = estimators[0].getPose();
+        for(int i = 1; i < estimators.length; i++) {
+            double divergence = estimators[i].getPose().distanceTo(reference.getX(), reference.getY());
+            if(divergence > maxDivergence[i])
+                maxDivergence[i] = divergence;
+        }
+    }
+
+    /**
+     * How much faster than real time the last run was
+     *
+     * @return the recorded duration divided by the replay duration
+     */
+    public double getSpeedFactor() {
+        return replayNanos == 0 ? 0.0 : (double) logNanos / replayNanos;
+    }
+
+    /**
+     * The largest position difference between an estimator and the reference during the last run
+     *
+     * @param index the estimator's index in the run
+     *
+     * @return the divergence in inches
+     */
+    public double getMaxDivergence(int index) {
+        return maxDivergence[index];
+    }
+
+    /**
+     * Replays a log comparing fused odometry and vision against odometry alone.
+     * Usage: TeamCode/replay.sh ReplayEngine log.bin startX startY startHeading [layout.csv]
+     *
+     * @param args the log path, starting pose and optionally the field layout
+     *
+     * @throws IOException if the log cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        MatchLog log = new MatchLog(new File(args[0]));
+        Pose2d start = new Pose2d(Double.parseDouble(args[1]), Double.parseDouble(args[2]),
+                Double.parseDouble(args[3]));
+        FieldLayout layout = FieldLayout.load(args.length > 4 ? args[4] : FieldLayout.LAYOUT_FILE);
+
+        PoseEstimator[] estimators = {
+                new FusedEstimator("fused", start, true, layout),
+                new FusedEstimator("odometry only", start, false, layout)
+        };
+        ReplayEngine engine = new ReplayEngine(log);
+        engine.run(estimators);
+
+        System.out.printf("%d records, %.0fx real time%n", log.getNumRecords(), engine.getSpeedFactor());
+        for(int i = 0; i < estimators.length; i++)
+            System.out.printf("%-16s final %s, max divergence %.2f in%n", estimators[i].getName(),
+                    estimators[i].getPose(), engine.getMaxDivergence(i));
+    }
+}
@@ -0,0 +1,202 @@
+package org.firstinspires.ftc.teamcode.logging;
+
+import org.firstinspires.ftc.teamcode.robot.FieldLayout;
+import org.firstinspires.ftc.teamcode.robot.TagLocalizer;
+import org.firstinspires.ftc.teamcode.utils.MathUtilities;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Replays the April Tag detections of a match log through TagLocalizer, the
+ * pose math behind Vision.update(), and reports throughput, per-update latency
+ * and pose error against the logged ground truth. Runs on a desktop JVM.
+ * Detections recorded by the same Vision.update() call share a timestamp and
+ * are fused together, exactly as they were on the robot.
+ */
+public class VisionBenchmark {
+    private final MatchLog log;
+    private final TagLocalizer localizer;
+    private long[] updateNanos;
+    private double[] positionErrors;
+    private double[] headingErrors;
+    private int numUpdates;
+    private int numErrors;
+    private int numDetections;
+    private long totalNanos;
+
+    /**
+     * Creates a VisionBenchmark for a log
+     *
+     * @param log the recorded log
+     * @param layout the field's tag layout
+     */
+    public VisionBenchmark(MatchLog log, FieldLayout layout) {
+        this.log = log;
+        this.localizer = new TagLocalizer(layout);
+    }
+
+    /**
+     * Replays every update in the log, repeated to get stable timings
+     *
+     * @param passes the number of times to replay the log
+     */
+    public void run(int passes) {
+        long numRecords = log.getNumRecords();
+        int updatesPerPass = countUpdates();
+        updateNanos = new long[updatesPerPass * passes];
+        positionErrors = new double[updatesPerPass];
+        headingErrors = new double[updatesPerPass];
+        numUpdates = 0;
+        numErrors = 0;
+        numDetections = 0;
+        totalNanos = 0;
+
+        for(int pass = 0; pass < passes; pass++) {
+            boolean hasTruth = false;
+            double truthX = 0.0, truthY = 0.0, truthHeading = 0.0;
+            long i = 0;
+            while(i < numRecords) {
+                log.seek(i);
+                int type = log.getType();
+                if(type == MatchLog.TYPE_GROUND_TRUTH) {
+                    hasTruth = true;
+                    truthX = log.getFloat(0);
+                    truthY = log.getFloat(4);
+                    truthHeading = log.getFloat(8);
+                    i++;
+                    continue;
+                }
+                if(type != MatchLog.TYPE_TAG) {
+                    i++;
+                    continue;
+                }
+
+                long updateTime = log.getTimeNanos();
+                long start = System.nanoTime();
+                localizer.reset();
+                while(i < numRecords) {
+                    log.seek(i);
+                    if(log.getType() != MatchLog.TYPE_TAG || log.getTimeNanos() != updateTime)
+                        break;
+                    localizer.addDetection(log.getInt(4), log.getFloat(8), log.getFloat(12),
+                            log.getFloat(16), log.getInt(0) == MatchLog.FRONT_CAM);
+                    numDetections++;
+                    i++;
+                }
+                Pose2d pose = localizer.getPose();
+                long elapsed = System.nanoTime() - start;
+                updateNanos[numUpdates++] = elapsed;
+                totalNanos += elapsed;
+
+                if(pass == 0 && hasTruth && pose != null) {
+                    positionErrors[numErrors] = pose.distanceTo(truthX, truthY);
+                    headingErrors[numErrors] = Math.abs(MathUtilities.addAngles(pose.getHeading(), -truthHeading));
+                    numErrors++;
+                }
+            }
+        }
+    }
+
+    private int countUpdates() {
+        int count = 0;
+        boolean previousWasTag = false;
+        long previousTime = 0;
+        for(long i = 0; i < log.getNumRecords(); i++) {
+            log.seek(i);
+            boolean isTag = log.getType() == MatchLog.TYPE_TAG;
+            if(isTag && (!previousWasTag || log.getTimeNanos() != previousTime))
+                count++;
+            previousWasTag = isTag;
+            previousTime = log.getTimeNanos();
+        }
+        return count;
+    }
+
+    /**
+     * Detections localized per second of CPU time in the last run
+     *
+     * @return the throughput
+     */
+    public double getDetectionsPerSecond() {
+        return totalNanos == 0 ? 0.0 : numDetections * 1.0E9 / totalNanos;
+    }
+
+    /**
+     * A percentile of the time taken by one update in the last run
+     *
+     * @param percentile the percentile [0, 100]
+     *
+     * @return the time in microseconds
+     */
+    public double getUpdateMicros(double percentile) {
+        return percentile(toDoubles(updateNanos, numUpdates), numUpdates, percentile) * 1.0E-3;
+    }
+
+    /**
+     * A percentile of the position error against ground truth in the last run
+     *
+     * @param percentile the percentile [0, 100]
+     *
+     * @return the error in inches
+     */
+    public double getPositionError(double percentile) {
+        return percentile(positionErrors, numErrors, percentile);
+    }
+
+    /**
+     * A percentile of the heading error against ground truth in the last run
+     *
+     * @param percentile the percentile [0, 100]
+     *
+     * @return the error in degrees
+     */
+    public double getHeadingError(double percentile) {
+        return percentile(headingErrors, numErrors, percentile);
+    }
+
+    private static double[] toDoubles(long[] values, int count) {
+        double[] doubles = new double[count];
+        for(int i = 0; i < count; i++)
+            doubles[i] = values[i];
+        return doubles;
+    }
+
+    private static double percentile(double[] values, int count, double percentile) {
+        if(count == 0)
+            return Double.NaN;
+        double[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /**
+     * Benchmarks the vision pose math on a recorded log.
+     * Usage: TeamCode/replay.sh VisionBenchmark log.bin [passes] [layout.csv]
+     *
+     * @param args the log path and optionally the number of passes and field layout
+     *
+     * @throws IOException if the log cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        MatchLog log = new MatchLog(new File(args[0]));
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        FieldLayout layout = FieldLayout.load(args.length > 2 ? args[2] : FieldLayout.LAYOUT_FILE);
+
+        VisionBenchmark benchmark = new VisionBenchmark(log, layout);
+        benchmark.run(1); // warm up
+        benchmark.run(passes);
+
+        System.out.printf("%.0f detections/s%n", benchmark.getDetectionsPerSecond());
+        System.out.printf("update latency p50 %.2f us, p99 %.2f us, max %.2f us%n",
+                benchmark.getUpdateMicros(50), benchmark.getUpdateMicros(99), benchmark.getUpdateMicros(100));
+        System.out.printf("position error p50 %.2f in, p95 %.2f in, max %.2f in%n",
+                benchmark.getPositionError(50), benchmark.getPositionError(95), benchmark.getPositionError(100));
+        System.out.printf("heading error p50 %.2f deg, p95 %.2f deg, max %.2f deg%n",
+                benchmark.getHeadingError(50), benchmark.getHeadingError(95), benchmark.getHeadingError(100));
+    }
+}
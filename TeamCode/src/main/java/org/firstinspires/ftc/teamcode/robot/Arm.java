@@ -6,18 +6,24 @@ import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.Servo;
 
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
 import org.firstinspires.ftc.teamcode.utils.Constants;
 import org.firstinspires.ftc.teamcode.utils.MathUtilities;
 
-//TODO: add back pot functionalities
 //TODO: add replacement for actuators
 
 /**
  * The Arm Subsystem of the robot
  */
 public class Arm implements Constants {
-    private double prevAngle;
     private final AnalogInput pot;
+    private final double[] potWindow = new double[POT_SAMPLES];
+    private final double[] potSorted = new double[POT_SAMPLES];
+    private int potIndex;
+    private double potVoltage;
+    private double armAngle;
+    private double armVelocity;
+    private long prevTime;
     private final DcMotorEx leftShoulder;
     private final DcMotorEx rightShoulder;
     private final DcMotorEx winch;
@@ -25,6 +31,10 @@ public class Arm implements Constants {
 //    private final Servo leftExtension;
 //    private final Servo rightExtension;
     private final Servo planeLauncher;
+    private CollisionEnvelope envelope;
+    private double powerLimit = 1.0;
+    private double winchLimit = 1.0;
+    private double voltageCompensation = 1.0;
 
     /**
      * Initializes the Arm object
@@ -60,28 +70,57 @@ public class Arm implements Constants {
 
         planeLauncher.scaleRange(PLANE_LAUNCHER_COCKED, 1.0);
 
-        prevAngle = 5.0;
+        potVoltage = pot.getVoltage();
+        for(int i = 0; i < POT_SAMPLES; i++)
+            potWindow[i] = potVoltage;
+        armAngle = potToAngle(potVoltage);
     }
 
-//    /**
-//     * Updates the Pot Derivative/dampening controller
-//     */
-//    public void update() {
-//        prevAngle = this.getArmAngle();
-//    }
+    /**
+     * Reads the pot and updates the arm angle and velocity, call once in each loop
+     */
+    public void update() {
+        potVoltage += POT_SMOOTHING * (medianPot() - potVoltage);
+        double angle = potToAngle(potVoltage);
+
+        long now = System.nanoTime();
+        double dt = (now - prevTime) * 1.0E-9;
+        if(prevTime != 0 && dt > 0.0)
+            armVelocity = (angle - armAngle) / dt;
+        prevTime = now;
+        armAngle = angle;
+    }
+
+    // one hub read per loop, the median over the last few loops rejects single noisy reads
+    private double medianPot() {
+        potWindow[potIndex] = pot.getVoltage();
+        potIndex = (potIndex + 1) % POT_SAMPLES;
+        for(int i = 0; i < POT_SAMPLES; i++) {
+            double sample = potWindow[i];
+            int j = i;
+            for(; j > 0 && potSorted[j - 1] > sample; j--)
+                potSorted[j] = potSorted[j - 1];
+            potSorted[j] = sample;
+        }
+        return potSorted[POT_SAMPLES / 2];
+    }
+
+    private static double potToAngle(double voltage) {
+        return ((POT_COEFF_D * voltage + POT_COEFF_C) * voltage + POT_COEFF_B) * voltage + POT_COEFF_A - 60.0;
+    }
 
     /**
      * Sets the Winch Power to climb the bot
      */
     public void winchRobot() {
-        winch.setPower(1.0);
+        winch.setPower(winchLimit);
     }
 
     /**
      * Sets the winch power oppositely to untangle the string
      */
     public void winchOpposite() {
-        winch.setPower(-1.0);
+        winch.setPower(-winchLimit);
     }
 
     /**
@@ -91,20 +130,31 @@ public class Arm implements Constants {
         winch.setPower(0.0);
     }
 
-//    /**
-//     * Moves the arm with PID
-//     *
-//     * @param desiredAngle the arm angle in degrees, 0 is retracted
-//     */
-//    public void armGoToPos(double desiredAngle) {
-//        double angle = getArmAngle();
-//        double power = SHOULDER_P * (desiredAngle - angle);
-//        double scalingFactor = SHOULDER_F * (180.0 - angle);
-//        double deltaTheta = angle - prevAngle;
-//        double dampening = SHOULDER_D * deltaTheta;
-//
-//        armManualControl(power + scalingFactor - dampening);
-//    }
+    /**
+     * Moves the arm with PD control and gravity compensation
+     *
+     * @param desiredAngle the arm angle in degrees, 0 is retracted
+     */
+    public void armGoToPos(double desiredAngle) {
+        armFollow(desiredAngle, 0.0, 0.0);
+    }
+
+    /**
+     * Moves the arm along a motion profile with PD control on the
+     * profile's setpoint plus gravity, velocity and acceleration feedforward
+     *
+     * @param desiredAngle the setpoint angle in degrees
+     * @param desiredVelocity the setpoint velocity in degrees per second
+     * @param desiredAcceleration the setpoint acceleration in degrees per second squared
+     */
+    public void armFollow(double desiredAngle, double desiredVelocity, double desiredAcceleration) {
+        double power = SHOULDER_P * (desiredAngle - armAngle);
+        double gravity = SHOULDER_F * Math.cos(Math.toRadians(armAngle - ARM_HORIZONTAL_ANGLE));
+        double dampening = SHOULDER_D * (desiredVelocity - armVelocity);
+        double feedforward = SHOULDER_V * desiredVelocity + SHOULDER_A * desiredAcceleration;
+
+        armManualControl(power + gravity + dampening + feedforward);
+    }
 
     /**
      * Moves the arm manually
@@ -112,7 +162,9 @@ public class Arm implements Constants {
      * @param power the turning power [-max speed, max_speed]
      */
     public void armManualControl(double power) {
-        power = MathUtilities.clip(power, -SHOULDER_GOVERNOR, SHOULDER_GOVERNOR);
+        power = MathUtilities.clip(power * voltageCompensation, -SHOULDER_GOVERNOR * powerLimit, SHOULDER_GOVERNOR * powerLimit);
+        if(envelope != null)
+            power = envelope.clampArmPower(power, armAngle, getWristAngle(), armVelocity);
         leftShoulder.setPower(-power);
         rightShoulder.setPower(power);
     }
@@ -124,28 +176,56 @@ public class Arm implements Constants {
      * @param power the turning power [-max_speed, max_speed]
      */
     public void wristManualControl(double power) {
-        power = MathUtilities.clip(power, -WRIST_GOVERNOR, WRIST_GOVERNOR);
+        power = MathUtilities.clip(power * voltageCompensation, -WRIST_GOVERNOR * powerLimit, WRIST_GOVERNOR * powerLimit);
+        if(envelope != null)
+            power = envelope.clampWristPower(power, armAngle, getWristAngle());
         wristMotor.setPower(power);
     }
 
     /**
-     * Turns the wrist to the specified angle using PID control
+     * Turns the wrist to the specified angle using P control and gravity compensation
      *
      * @param desiredAngle the angle of the wrist in degrees
      */
     public void setWristPos(double desiredAngle) {
-        double error = desiredAngle - getWristAngle();
-        wristMotor.setPower(error * WRIST_P);
+        wristFollow(desiredAngle, 0.0, 0.0);
     }
 
-//    /**
-//     * Sets the wrist as a virtual fourbar to hold an angle
-//     * 10 degrees below the horizontal
-//     */
-//    public void wristFourbar() {
-//        double angle = MathUtilities.clip(85.0 - getArmAngle(), -110.0, 110.0);
-//        setWristPos(angle);
-//    }
+    /**
+     * Moves the wrist along a motion profile. The hand's weight pulls
+     * hardest when it is horizontal, which depends on the arm angle too.
+     *
+     * @param desiredAngle the setpoint angle in degrees
+     * @param desiredVelocity the setpoint velocity in degrees per second
+     * @param desiredAcceleration the setpoint acceleration in degrees per second squared
+     */
+    public void wristFollow(double desiredAngle, double desiredVelocity, double desiredAcceleration) {
+        double wristAngle = getWristAngle();
+        double power = WRIST_P * (desiredAngle - wristAngle);
+        double gravity = WRIST_F * Math.cos(Math.toRadians(armAngle + wristAngle - WRIST_HORIZONTAL_ANGLE));
+        double feedforward = WRIST_V * desiredVelocity + WRIST_A * desiredAcceleration;
+
+        wristManualControl(power + gravity + feedforward);
+    }
+
+    /**
+     * Sets the wrist as a virtual fourbar to hold an angle
+     * 10 degrees below the horizontal
+     */
+    public void wristFourbar() {
+        setWristPos(getFourbarAngle(armAngle));
+    }
+
+    /**
+     * The wrist angle that keeps the hand at the virtual fourbar angle
+     *
+     * @param armAngle the arm angle in degrees
+     *
+     * @return the wrist angle in degrees, within the wrist's range
+     */
+    public static double getFourbarAngle(double armAngle) {
+        return MathUtilities.clip(FOURBAR_ANGLE - armAngle, -WRIST_LIMIT, WRIST_LIMIT);
+    }
 
 //    /**
 //     * Fully Extend or Retract Linear Actuators on the Arm.
@@ -168,25 +248,98 @@ public class Arm implements Constants {
         planeLauncher.setPosition(shoot ? 1.0 : PLANE_LAUNCHER_COCKED);
     }
 
-//    /**
-//     * ACQUIRE THE ZA
-//     *
-//     * @return the za aka the raw potentiometer voltage output
-//     */
-//    public double getPot() {
-//        return pot.getVoltage();
-//    }
+    /**
+     * ACQUIRE THE ZA
+     *
+     * @return the za aka the filtered potentiometer voltage output
+     */
+    public double getPot() {
+        return potVoltage;
+    }
 
-//    /**
-//     * Uses the potentiometer value and a conversion to
-//     * estimate the angle of the arm.
-//     *
-//     * @return the arm angle in degrees, with 0 as fully in.
-//     */
-//    public double getArmAngle() {
-//        double potVal = this.getPot();
-//        return POT_COEFF_D * Math.pow( potVal, 3 ) + POT_COEFF_C * Math.pow( potVal, 2) + POT_COEFF_B * potVal + POT_COEFF_A - 60.0;
-//    }
+    /**
+     * Uses the filtered potentiometer value and a conversion to
+     * estimate the angle of the arm, as of the last update().
+     *
+     * @return the arm angle in degrees, with 0 as fully in.
+     */
+    public double getArmAngle() {
+        return armAngle;
+    }
+
+    /**
+     * The arm's angular velocity from the filtered pot
+     *
+     * @return the velocity in degrees per second
+     */
+    public double getArmVelocity() {
+        return armVelocity;
+    }
+
+    /**
+     * Sets the interlock that keeps the arm and wrist out of the intake,
+     * every arm and wrist command goes through it
+     *
+     * @param envelope the interlock, null for none
+     */
+    public void setEnvelope(CollisionEnvelope envelope) {
+        this.envelope = envelope;
+    }
+
+    /**
+     * Whether the interlock cut the last arm or wrist command
+     *
+     * @return true if either joint is blocked
+     */
+    public boolean isBlocked() {
+        return envelope != null && (envelope.isArmBlocked() || envelope.isWristBlocked());
+    }
+
+    /**
+     * Limits the shoulder and wrist power, for the power manager
+     *
+     * @param limit the proportion of their governors allowed [0, 1]
+     */
+    public void setPowerLimit(double limit) {
+        powerLimit = limit;
+    }
+
+    /**
+     * Scales every shoulder and wrist power, which are tuned at NOMINAL_VOLTAGE
+     *
+     * @param compensation the BatteryVoltage compensation
+     */
+    public void setVoltageCompensation(double compensation) {
+        voltageCompensation = compensation;
+    }
+
+    /**
+     * Limits the winch power, for the power manager
+     *
+     * @param limit the proportion of full power allowed [0, 1]
+     */
+    public void setWinchLimit(double limit) {
+        winchLimit = limit;
+    }
+
+    /**
+     * The current drawn by the shoulder and wrist motors, each motor is a separate hub read
+     *
+     * @return the current in amps
+     */
+    public double getCurrent() {
+        return leftShoulder.getCurrent(CurrentUnit.AMPS) + rightShoulder.getCurrent(CurrentUnit.AMPS)
+                + wristMotor.getCurrent(CurrentUnit.AMPS);
+    }
+
+    /**
+     * The current drawn by the winch
+     *
+     * @return the current in amps
+     */
+    public double getWinchCurrent() {
+        return winch.getCurrent(CurrentUnit.AMPS);
+    }
 
     /**
      * Return the Wrist Position
@@ -0,0 +1,179 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+
+/**
+ * Multi-step operator macros over the Arm, Hand and Intake. Each macro is a
+ * short list of steps, and everything in a step moves at once; a new step
+ * only starts where the order matters, like gripping before the arm lifts.
+ * Arm and wrist moves are planned together by an ArmPlanner. Nothing
+ * blocks, call update in each loop while the macro is active. Once finished
+ * the macro keeps holding the arm and wrist until it is cancelled.
+ */
+public class ArmMacros implements Constants {
+    /** The operator macros */
+    public enum Macro { STOW, INTAKE_READY, SCORE_LOW, SCORE_MID, SCORE_HIGH, LAUNCH_PLANE }
+
+    private enum State { IDLE, RUNNING, HOLDING }
+
+    // one step of a macro, NaN leaves the arm, wrist or claw as they are
+    private static class Step {
+        final double armAngle, time, wristAngle, clawPosition;
+        final boolean panDown, firePlane;
+
+        Step(double armAngle, double time, double wristAngle, double clawPosition, boolean panDown, boolean firePlane) {
+            this.armAngle = armAngle;
+            this.time = time;
+            this.wristAngle = wristAngle;
+            this.clawPosition = clawPosition;
+            this.panDown = panDown;
+            this.firePlane = firePlane;
+        }
+    }
+
+    private final Arm arm;
+    private final Hand hand;
+    private final ArmPlanner planner;
+    private final Step[][] steps = new Step[Macro.values().length][];
+    private State state;
+    private Macro macro;
+    private int step;
+    private long stepStart;
+    private double stepTime;
+    private double armTarget;
+    private double wristTarget;
+
+    /**
+     * Creates the macros
+     *
+     * @param arm the arm
+     * @param hand the hand
+     */
+    public ArmMacros(Arm arm, Hand hand) {
+        this.arm = arm;
+        this.hand = hand;
+        this.planner = new ArmPlanner(arm);
+        this.state = State.IDLE;
+
+        // the pan must be down whenever the arm passes near it
+        steps[Macro.STOW.ordinal()] = new Step[] {
+                new Step(Double.NaN, MACRO_SERVO_TIME, WRIST_STOW_ANGLE, CLAW_GRIP_POSITION, true, false),
+                new Step(ARM_STOW_ANGLE, 0.0, Double.NaN, Double.NaN, true, false) };
+        steps[Macro.INTAKE_READY.ordinal()] = new Step[] {
+                new Step(ARM_STOW_ANGLE, 0.0, WRIST_INTAKE_ANGLE, Double.NaN, true, false),
+                new Step(Double.NaN, MACRO_SERVO_TIME, Double.NaN, CLAW_RELEASE_POSITION, true, false) };
+        steps[Macro.SCORE_LOW.ordinal()] = scoreSteps(ARM_SCORE_LOW_ANGLE, WRIST_SCORE_LOW_ANGLE);
+        steps[Macro.SCORE_MID.ordinal()] = scoreSteps(ARM_SCORE_MID_ANGLE, WRIST_SCORE_MID_ANGLE);
+        steps[Macro.SCORE_HIGH.ordinal()] = scoreSteps(ARM_SCORE_HIGH_ANGLE, WRIST_SCORE_HIGH_ANGLE);
+        steps[Macro.LAUNCH_PLANE.ordinal()] = new Step[] {
+                new Step(LAUNCH_ARM_ANGLE, 0.0, WRIST_STOW_ANGLE, CLAW_GRIP_POSITION, true, false),
+                new Step(Double.NaN, MACRO_SERVO_TIME, Double.NaN, Double.NaN, false, true),
+                new Step(Double.NaN, MACRO_SERVO_TIME, Double.NaN, Double.NaN, false, false) };
+    }
+
+    private Step[] scoreSteps(double armAngle, double wristAngle) {
+        return new Step[] {
+                new Step(Double.NaN, MACRO_SERVO_TIME, Double.NaN, CLAW_GRIP_POSITION, true, false),
+                new Step(armAngle, 0.0, wristAngle, Double.NaN, true, false) };
+    }
+
+    /**
+     * Starts a macro, replacing any that is active
+     *
+     * @param macro the macro to run
+     * @param timeNanos the System.nanoTime() of the loop
+     */
+    public void start(Macro macro, long timeNanos) {
+        this.macro = macro;
+        state = State.RUNNING;
+        armTarget = arm.getArmAngle();
+        wristTarget = arm.getWristAngle();
+        planner.moveTo(armTarget, wristTarget, timeNanos);
+        hand.setTurnyWristPos(0.5);
+        startStep(0, timeNanos);
+    }
+
+    /**
+     * Stops the active macro and hands the arm back to the operator
+     */
+    public void cancel() {
+        if(state == State.IDLE)
+            return;
+        state = State.IDLE;
+        arm.armManualControl(0.0);
+        arm.setPlaneLauncher(false);
+    }
+
+    /**
+     * Runs the active macro, call in each loop while isActive()
+     *
+     * @param timeNanos the System.nanoTime() of the loop
+     */
+    public void update(long timeNanos) {
+        if(state == State.IDLE)
+            return;
+        planner.update(timeNanos);
+        if(state == State.HOLDING)
+            return;
+
+        double elapsed = (timeNanos - stepStart) * 1.0E-9;
+        boolean reached = Math.abs(armTarget - arm.getArmAngle()) < MACRO_ARM_TOLERANCE
+                && Math.abs(wristTarget - arm.getWristAngle()) < MACRO_WRIST_TOLERANCE;
+        if(elapsed >= stepTime && (reached || elapsed >= stepTime + MACRO_STEP_TIMEOUT)) {
+            if(step + 1 < steps[macro.ordinal()].length)
+                startStep(step + 1, timeNanos);
+            else
+                state = State.HOLDING;
+        }
+    }
+
+    private void startStep(int step, long timeNanos) {
+        this.step = step;
+        stepStart = timeNanos;
+        Step next = steps[macro.ordinal()][step];
+        if(!Double.isNaN(next.armAngle))
+            armTarget = next.armAngle;
+        if(!Double.isNaN(next.wristAngle))
+            wristTarget = next.wristAngle;
+        // only a step that moves the joints waits out the planned move
+        stepTime = next.time;
+        if(!Double.isNaN(next.armAngle) || !Double.isNaN(next.wristAngle)) {
+            planner.moveTo(armTarget, wristTarget, timeNanos);
+            stepTime = Math.max(next.time, planner.getDuration());
+        }
+        if(!Double.isNaN(next.clawPosition))
+            hand.setClawPos(next.clawPosition);
+        arm.setPlaneLauncher(next.firePlane);
+    }
+
+    /**
+     * Whether a macro is running or holding the arm and wrist
+     *
+     * @return true until the macro is cancelled
+     */
+    public boolean isActive() {
+        return state != State.IDLE;
+    }
+
+    /**
+     * Whether the running step needs the intake pan lowered out of the arm's way
+     *
+     * @return true if the pan must be down
+     */
+    public boolean isPanDownRequired() {
+        return state == State.RUNNING && steps[macro.ordinal()][step].panDown;
+    }
+
+    /**
+     * The macro and its progress, for telemetry
+     *
+     * @return the macro's name and step, or none
+     */
+    public String getStatus() {
+        if(state == State.IDLE)
+            return "none";
+        if(state == State.HOLDING)
+            return macro + " done";
+        return macro + " " + (step + 1) + "/" + steps[macro.ordinal()].length;
+    }
+}
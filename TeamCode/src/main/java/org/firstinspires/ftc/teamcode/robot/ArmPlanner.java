@@ -0,0 +1,86 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.teamcode.utils.TrapezoidProfile;
+
+/**
+ * Plans coordinated shoulder and wrist moves. The arm is profiled in its
+ * own angle and the wrist in the hand's angle to the arm's base, the sum
+ * of the arm and wrist angles, so a move that keeps the hand's angle holds
+ * the virtual fourbar the whole way. Both profiles are stretched to the
+ * slower one's duration so the joints start and finish together.
+ */
+public class ArmPlanner implements Constants {
+    private final Arm arm;
+    private final TrapezoidProfile armProfile = new TrapezoidProfile();
+    private final TrapezoidProfile handProfile = new TrapezoidProfile();
+    private double armGoal;
+    private double wristGoal;
+    private long moveStart;
+
+    /**
+     * Creates an ArmPlanner, holding the arm and wrist where they are
+     *
+     * @param arm the arm
+     */
+    public ArmPlanner(Arm arm) {
+        this.arm = arm;
+        moveTo(arm.getArmAngle(), arm.getWristAngle(), System.nanoTime());
+    }
+
+    /**
+     * Plans a move from the measured angles to new ones
+     *
+     * @param armAngle the arm's goal in degrees
+     * @param wristAngle the wrist's goal in degrees
+     * @param timeNanos the System.nanoTime() the move starts
+     */
+    public void moveTo(double armAngle, double wristAngle, long timeNanos) {
+        armGoal = armAngle;
+        wristGoal = wristAngle;
+        double startArm = arm.getArmAngle();
+        armProfile.set(startArm, armAngle, ARM_MAX_VELOCITY, ARM_MAX_ACCELERATION);
+        handProfile.set(startArm + arm.getWristAngle(), armAngle + wristAngle,
+                WRIST_MAX_VELOCITY, WRIST_MAX_ACCELERATION);
+
+        double duration = Math.max(armProfile.getDuration(), handProfile.getDuration());
+        armProfile.stretch(duration);
+        handProfile.stretch(duration);
+        moveStart = timeNanos;
+    }
+
+    /**
+     * Drives both joints along the move, call in each loop. Once the move
+     * is finished the joints hold its goal. While the interlock blocks a
+     * joint the move is planned again from where the joints are, so the
+     * setpoint waits for them instead of running ahead.
+     *
+     * @param timeNanos the System.nanoTime() of the loop
+     */
+    public void update(long timeNanos) {
+        double time = (timeNanos - moveStart) * 1.0E-9;
+        double armAngle = armProfile.getPosition(time);
+        double armVelocity = armProfile.getVelocity(time);
+        double armAcceleration = armProfile.getAcceleration(time);
+        arm.armFollow(armAngle, armVelocity, armAcceleration);
+
+        double wristAngle = handProfile.getPosition(time) - armAngle;
+        if(Math.abs(wristAngle) > WRIST_LIMIT)
+            arm.setWristPos(Math.signum(wristAngle) * WRIST_LIMIT);
+        else
+            arm.wristFollow(wristAngle, handProfile.getVelocity(time) - armVelocity,
+                    handProfile.getAcceleration(time) - armAcceleration);
+
+        if(arm.isBlocked())
+            moveTo(armGoal, wristGoal, timeNanos);
+    }
+
+    /**
+     * The time the planned move takes, the joints may still be settling after it
+     *
+     * @return the duration in seconds
+     */
+    public double getDuration() {
+        return Math.max(armProfile.getDuration(), handProfile.getDuration());
+    }
+}
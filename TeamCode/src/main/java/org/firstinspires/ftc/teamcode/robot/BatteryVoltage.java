@@ -0,0 +1,87 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.teamcode.utils.MathUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the battery voltage from the hubs every BATTERY_SAMPLE_PERIOD and
+ * keeps both the latest reading, for reacting to sag, and a slow filtered
+ * one for voltage compensation. Motor power is a fraction of the battery
+ * voltage, so scaling outputs by NOMINAL_VOLTAGE over the filtered voltage
+ * makes a tuned power do the same thing on a fresh or a tired battery.
+ */
+public class BatteryVoltage implements Constants {
+    private final List<VoltageSensor> voltageSensors = new ArrayList<>();
+    private double voltage;
+    private double filteredVoltage;
+    private long lastSampleTime;
+
+    /**
+     * Creates the service and takes a first reading
+     *
+     * @param hwMap the hardwareMap, for the hubs' voltage sensors
+     */
+    public BatteryVoltage(HardwareMap hwMap) {
+        for(VoltageSensor sensor : hwMap.voltageSensor)
+            voltageSensors.add(sensor);
+        voltage = read();
+        filteredVoltage = voltage;
+    }
+
+    /**
+     * Reads the voltage if a sample is due, call in each loop
+     *
+     * @param timeNanos the System.nanoTime() of the loop
+     */
+    public void update(long timeNanos) {
+        if((timeNanos - lastSampleTime) * 1.0E-9 < BATTERY_SAMPLE_PERIOD)
+            return;
+        lastSampleTime = timeNanos;
+        voltage = read();
+        filteredVoltage += BATTERY_SMOOTHING * (voltage - filteredVoltage);
+    }
+
+    // the lowest hub voltage, 0 readings are hubs that have not reported yet
+    private double read() {
+        double lowest = Double.POSITIVE_INFINITY;
+        for(VoltageSensor sensor : voltageSensors) {
+            double sensorVoltage = sensor.getVoltage();
+            if(sensorVoltage > 0.0)
+                lowest = Math.min(lowest, sensorVoltage);
+        }
+        return lowest == Double.POSITIVE_INFINITY ? NOMINAL_VOLTAGE : lowest;
+    }
+
+    /**
+     * The latest reading, which dips with every current spike
+     *
+     * @return the voltage in volts
+     */
+    public double getVoltage() {
+        return voltage;
+    }
+
+    /**
+     * The filtered reading, which follows the battery's charge
+     *
+     * @return the voltage in volts
+     */
+    public double getFilteredVoltage() {
+        return filteredVoltage;
+    }
+
+    /**
+     * The factor to multiply a power tuned at NOMINAL_VOLTAGE by
+     *
+     * @return the compensation, 1 at the nominal voltage
+     */
+    public double getCompensation() {
+        return MathUtilities.clip(NOMINAL_VOLTAGE / filteredVoltage, MIN_VOLTAGE_COMPENSATION, MAX_VOLTAGE_COMPENSATION);
+    }
+}
@@ -0,0 +1,175 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+
+/**
+ * A configuration space interlock for the arm, wrist and intake pan. Which
+ * arm and wrist angles are clear is worked out once per pan state into a
+ * grid of INTERLOCK_CELL degree cells, along with which way each blocked
+ * cell is quickest to leave. In the loop, a joint's power is cut if it
+ * would carry the joint into a blocked cell, and a joint already inside
+ * one may only move out, so everything can move at once safely.
+ */
+public class CollisionEnvelope implements Constants {
+    private static final int ARM_CELLS = (int) Math.round((INTERLOCK_ARM_MAX - INTERLOCK_ARM_MIN) / INTERLOCK_CELL) + 1;
+    private static final int WRIST_CELLS = (int) Math.round(2.0 * WRIST_LIMIT / INTERLOCK_CELL) + 1;
+    private static final int PAN_DOWN = 0, PAN_UP = 1, PAN_MOVING = 2;
+    // 0 is clear, 1 or -1 is blocked and the direction out, 2 is blocked all along the axis
+    private static final byte CLEAR = 0, TRAPPED = 2;
+
+    private final Intake intake;
+    private final byte[] armEscape = new byte[3 * ARM_CELLS * WRIST_CELLS];
+    private final byte[] wristEscape = new byte[3 * ARM_CELLS * WRIST_CELLS];
+    private boolean armBlocked, wristBlocked;
+
+    /**
+     * Precomputes the grid
+     *
+     * @param intake the intake, for the pan's state
+     */
+    public CollisionEnvelope(Intake intake) {
+        this.intake = intake;
+
+        boolean[] clear = new boolean[armEscape.length];
+        for(int pan = PAN_DOWN; pan <= PAN_MOVING; pan++)
+            for(int a = 0; a < ARM_CELLS; a++)
+                for(int w = 0; w < WRIST_CELLS; w++) {
+                    double armAngle = INTERLOCK_ARM_MIN + a * INTERLOCK_CELL;
+                    double wristAngle = -WRIST_LIMIT + w * INTERLOCK_CELL;
+                    // a moving pan could be anywhere, so it must be clear of both
+                    clear[index(pan, a, w)] = pan == PAN_MOVING
+                            ? isClear(armAngle, wristAngle, false) && isClear(armAngle, wristAngle, true)
+                            : isClear(armAngle, wristAngle, pan == PAN_UP);
+                }
+
+        for(int pan = PAN_DOWN; pan <= PAN_MOVING; pan++)
+            for(int a = 0; a < ARM_CELLS; a++)
+                for(int w = 0; w < WRIST_CELLS; w++) {
+                    armEscape[index(pan, a, w)] = escape(clear, pan, a, w, true);
+                    wristEscape[index(pan, a, w)] = escape(clear, pan, a, w, false);
+                }
+    }
+
+    // the mechanism's geometry, only used to fill the grid
+    private static boolean isClear(double armAngle, double wristAngle, boolean panUp) {
+        if(panUp && armAngle > INTERLOCK_PAN_ARM_LOW && armAngle < INTERLOCK_PAN_ARM_ANGLE)
+            return false;
+        return armAngle >= INTERLOCK_LOW_ARM_ANGLE || wristAngle >= INTERLOCK_LOW_WRIST_ANGLE;
+    }
+
+    private static byte escape(boolean[] clear, int pan, int a, int w, boolean alongArm) {
+        if(clear[index(pan, a, w)])
+            return CLEAR;
+        int here = alongArm ? a : w;
+        int cells = alongArm ? ARM_CELLS : WRIST_CELLS;
+        for(int distance = 1; distance < cells; distance++) {
+            int up = here + distance, down = here - distance;
+            if(up < cells && clear[alongArm ? index(pan, up, w) : index(pan, a, up)])
+                return 1;
+            if(down >= 0 && clear[alongArm ? index(pan, down, w) : index(pan, a, down)])
+                return -1;
+        }
+        return TRAPPED;
+    }
+
+    private static int index(int pan, int armCell, int wristCell) {
+        return (pan * ARM_CELLS + armCell) * WRIST_CELLS + wristCell;
+    }
+
+    private static int armCell(double armAngle) {
+        return (int) Math.round(Math.min(Math.max((armAngle - INTERLOCK_ARM_MIN) / INTERLOCK_CELL, 0.0), ARM_CELLS - 1));
+    }
+
+    private static int wristCell(double wristAngle) {
+        return (int) Math.round(Math.min(Math.max((wristAngle + WRIST_LIMIT) / INTERLOCK_CELL, 0.0), WRIST_CELLS - 1));
+    }
+
+    private int panState() {
+        if(intake.isMoving())
+            return PAN_MOVING;
+        return intake.isRaised() ? PAN_UP : PAN_DOWN;
+    }
+
+    /**
+     * Cuts an arm power that would carry the arm into a collision
+     *
+     * @param power the arm power
+     * @param armAngle the arm angle in degrees
+     * @param wristAngle the wrist angle in degrees
+     * @param armVelocity the arm's velocity in degrees per second, to look further ahead when fast
+     *
+     * @return the power, or 0 if it is blocked
+     */
+    public double clampArmPower(double power, double armAngle, double wristAngle, double armVelocity) {
+        double reach = INTERLOCK_MARGIN + Math.abs(armVelocity) * INTERLOCK_LOOKAHEAD_TIME;
+        armBlocked = isBlocked(armEscape, power, armCell(armAngle),
+                armCell(armAngle + Math.signum(power) * reach), wristCell(wristAngle), true);
+        return armBlocked ? 0.0 : power;
+    }
+
+    /**
+     * Cuts a wrist power that would carry the wrist into a collision
+     *
+     * @param power the wrist power
+     * @param armAngle the arm angle in degrees
+     * @param wristAngle the wrist angle in degrees
+     *
+     * @return the power, or 0 if it is blocked
+     */
+    public double clampWristPower(double power, double armAngle, double wristAngle) {
+        wristBlocked = isBlocked(wristEscape, power, wristCell(wristAngle),
+                wristCell(wristAngle + Math.signum(power) * INTERLOCK_MARGIN), armCell(armAngle), false);
+        return wristBlocked ? 0.0 : power;
+    }
+
+    // walks the moving joint's cells from where it is to where it will be
+    private boolean isBlocked(byte[] escapes, double power, int from, int to, int otherCell, boolean alongArm) {
+        if(power == 0.0)
+            return false;
+        int pan = panState();
+        byte here = escapes[alongArm ? index(pan, from, otherCell) : index(pan, otherCell, from)];
+        if(here != CLEAR)
+            return here != TRAPPED && here != Math.signum(power);
+
+        int step = power > 0.0 ? 1 : -1;
+        for(int cell = from + step; cell != to + step; cell += step)
+            if(escapes[alongArm ? index(pan, cell, otherCell) : index(pan, otherCell, cell)] != CLEAR)
+                return true;
+        return false;
+    }
+
+    /**
+     * Whether the intake pan can be raised without hitting the arm
+     *
+     * @param armAngle the arm angle in degrees
+     * @param wristAngle the wrist angle in degrees
+     *
+     * @return true if the arm is clear of the raised pan
+     */
+    public boolean canRaisePan(double armAngle, double wristAngle) {
+        int wrist = wristCell(wristAngle);
+        int low = armCell(armAngle - INTERLOCK_MARGIN), high = armCell(armAngle + INTERLOCK_MARGIN);
+        for(int cell = low; cell <= high; cell++)
+            if(armEscape[index(PAN_UP, cell, wrist)] != CLEAR && armEscape[index(PAN_DOWN, cell, wrist)] == CLEAR)
+                return false;
+        return true;
+    }
+
+    /**
+     * Whether the last arm command was cut, for telemetry
+     *
+     * @return true if the arm is blocked
+     */
+    public boolean isArmBlocked() {
+        return armBlocked;
+    }
+
+    /**
+     * Whether the last wrist command was cut, for telemetry
+     *
+     * @return true if the wrist is blocked
+     */
+    public boolean isWristBlocked() {
+        return wristBlocked;
+    }
+}
@@ -0,0 +1,140 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.vision.VisionPortal;
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Adapts the decimation of one April Tag processor. Close tags are found
+ * cheaply with heavy decimation while far tags need full resolution, so the
+ * base decimation comes from the expected range to the nearest visible tag.
+ * On top of that, decimation is raised whenever the measured frame latency
+ * goes over target and lowered again once there is headroom, at most one
+ * step per DECIMATION_SETTLE_TIME so the latency can follow each change.
+ * With no tagged frames to measure, the extra decimation is stepped back.
+ */
+public class DecimationController implements Constants {
+    private final VisionPortal portal;
+    private final AprilTagProcessor processor;
+    private int decimation;
+    private int latencyBias;
+    private double latency;
+    private long previousFrameTime;
+    private long frameSeenTime;
+    private long biasChangeTime;
+    private final int[] loopsAt;
+    private final int[] detectionsAt;
+    private final double[] latencySumAt;
+    private final int[] framesAt;
+
+    /**
+     * Creates a DecimationController
+     *
+     * @param portal the portal running the processor
+     * @param processor the processor to control
+     */
+    public DecimationController(VisionPortal portal, AprilTagProcessor processor) {
+        this.portal = portal;
+        this.processor = processor;
+        this.decimation = MAX_DECIMATION;
+        processor.setDecimation(decimation);
+        loopsAt = new int[MAX_DECIMATION + 1];
+        detectionsAt = new int[MAX_DECIMATION + 1];
+        latencySumAt = new double[MAX_DECIMATION + 1];
+        framesAt = new int[MAX_DECIMATION + 1];
+    }
+
+    /**
+     * Measures the latest frame and adjusts decimation, call in each loop
+     *
+     * @param nearestTag the distance to the nearest tag expected in view in inches
+     * @param detections the processor's latest detections
+     * @param timeNanos the System.nanoTime() of the loop
+     */
+    public void update(double nearestTag, ArrayList<AprilTagDetection> detections, long timeNanos) {
+        // the scheduler turns the processor off when no tag can be seen
+        if(!portal.getProcessorEnabled(processor))
+            return;
+        loopsAt[decimation]++;
+        detectionsAt[decimation] += detections.size();
+
+        if(!detections.isEmpty() && detections.get(0).frameAcquisitionNanoTime != previousFrameTime) {
+            long frameTime = detections.get(0).frameAcquisitionNanoTime;
+            double frameLatency = (timeNanos - frameTime) * 1.0E-9;
+            latency += VISION_LATENCY_SMOOTHING * (frameLatency - latency);
+            latencySumAt[decimation] += frameLatency;
+            framesAt[decimation]++;
+            previousFrameTime = frameTime;
+            frameSeenTime = timeNanos;
+        }
+
+        if((timeNanos - biasChangeTime) * 1.0E-9 >= DECIMATION_SETTLE_TIME) {
+            int bias = latencyBias;
+            // without tagged frames the latency is not being measured, so give the resolution back
+            if((timeNanos - frameSeenTime) * 1.0E-9 >= DECIMATION_SETTLE_TIME)
+                bias = Math.max(bias - 1, 0);
+            else if(latency > VISION_LATENCY_TARGET)
+                bias = Math.min(bias + 1, MAX_DECIMATION - MIN_DECIMATION);
+            else if(latency < 0.7 * VISION_LATENCY_TARGET)
+                bias = Math.max(bias - 1, 0);
+            if(bias != latencyBias) {
+                latencyBias = bias;
+                biasChangeTime = timeNanos;
+            }
+        }
+
+        // nothing is expected in view during an idle scan, so it runs as cheap as a close tag
+        int base;
+        if(nearestTag < DECIMATION_CLOSE_RANGE || nearestTag >= VISION_MAX_RANGE)
+            base = MAX_DECIMATION;
+        else if(nearestTag < DECIMATION_MID_RANGE)
+            base = MAX_DECIMATION - 1;
+        else
+            base = MIN_DECIMATION;
+
+        int desired = Math.min(base + latencyBias, MAX_DECIMATION);
+        if(desired != decimation) {
+            decimation = desired;
+            processor.setDecimation(decimation);
+        }
+    }
+
+    /**
+     * The decimation currently in use
+     *
+     * @return the decimation
+     */
+    public int getDecimation() {
+        return decimation;
+    }
+
+    /**
+     * The smoothed latency from frame capture to use
+     *
+     * @return the latency in seconds
+     */
+    public double getLatency() {
+        return latency;
+    }
+
+    /**
+     * The detection rate and frame latency seen at each decimation, for the log
+     *
+     * @return one line per decimation used
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for(int i = MIN_DECIMATION; i <= MAX_DECIMATION; i++) {
+            if(loopsAt[i] == 0)
+                continue;
+            report.append(String.format(Locale.US, "decimation %d: %.2f detections/loop, %.1f ms latency over %d loops%n",
+                    i, (double) detectionsAt[i] / loopsAt[i],
+                    framesAt[i] == 0 ? 0.0 : 1000.0 * latencySumAt[i] / framesAt[i], loopsAt[i]));
+        }
+        return report.toString();
+    }
+}
@@ -3,17 +3,32 @@ package org.firstinspires.ftc.teamcode.robot;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+import org.firstinspires.ftc.teamcode.logging.MatchRecorder;
 import org.firstinspires.ftc.teamcode.utils.MathUtilities;
 import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
+import org.firstinspires.ftc.teamcode.utils.Twist2d;
+
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The robot drivetrain
  */
 public class Drivetrain implements Constants {
     public DcMotorEx frontLeft, frontRight, backLeft, backRight, leftDead, rightDead, centerDead;
-    private int previousLeft, previousRight, previousCenter;
-    private double x, y, heading, desiredHeading;
+    private final AtomicReference<Pose2d> pose;
+    private double desiredHeading;
     private final boolean isBlueAlliance;
+    private final Odometry odometry;
+    private final SlipDetector slipDetector;
+    private final MotionHistory motionHistory;
+    private MatchRecorder recorder;
+    private double backLeftPower, backRightPower, frontLeftPower, frontRightPower;
+    private long previousDriveTime, previousOdometryTime;
+    private long commandTime;
+    private double powerLimit = 1.0;
+    private double voltageCompensation = 1.0;
 
     /**
      * Initializes the Drivetrain object
@@ -22,15 +37,17 @@ public class Drivetrain implements Constants {
      * @param isBlueAlliance true for blue, false for red
      * @param x the starting x coordinate
      * @param y the starting y coordinate
+     * @param heading the starting heading in degrees
      */
     public Drivetrain(HardwareMap hwMap, boolean isBlueAlliance, double x, double y, double heading)
     {
         // Initialize Variables
         this.isBlueAlliance = isBlueAlliance;
-        this.x = x;
-        this.y = y;
-        this.heading = heading;
+        this.pose = new AtomicReference<>(new Pose2d(x, y, heading));
         this.desiredHeading = heading;
+        this.odometry = new Odometry();
+        this.slipDetector = new SlipDetector();
+        this.motionHistory = new MotionHistory();
 
         // Initialize Motors
         backLeft = hwMap.get(DcMotorEx.class, "backLeftDrive");
@@ -79,10 +96,28 @@ public class Drivetrain implements Constants {
         centerDead.setMode(DcMotorEx.RunMode.RUN_WITHOUT_ENCODER);
 
         // Set Motor PIDF Coefficients
-        backLeft.setVelocityPIDFCoefficients(BACK_LEFT_P, BACK_LEFT_I, BACK_LEFT_D, BACK_LEFT_F);
-        backRight.setVelocityPIDFCoefficients(BACK_RIGHT_P, BACK_RIGHT_I, BACK_RIGHT_D, BACK_RIGHT_F);
-        frontLeft.setVelocityPIDFCoefficients(FRONT_LEFT_P, FRONT_LEFT_I, FRONT_LEFT_D, FRONT_LEFT_F);
-        frontRight.setVelocityPIDFCoefficients(FRONT_RIGHT_P, FRONT_RIGHT_I, FRONT_RIGHT_D, FRONT_RIGHT_F);
+        setVelocityPIDF(voltageCompensation);
+    }
+
+    // the hub's velocity loop outputs a power, so every gain scales with the compensation
+    private void setVelocityPIDF(double scale) {
+        backLeft.setVelocityPIDFCoefficients(BACK_LEFT_P * scale, BACK_LEFT_I * scale, BACK_LEFT_D * scale, BACK_LEFT_F * scale);
+        backRight.setVelocityPIDFCoefficients(BACK_RIGHT_P * scale, BACK_RIGHT_I * scale, BACK_RIGHT_D * scale, BACK_RIGHT_F * scale);
+        frontLeft.setVelocityPIDFCoefficients(FRONT_LEFT_P * scale, FRONT_LEFT_I * scale, FRONT_LEFT_D * scale, FRONT_LEFT_F * scale);
+        frontRight.setVelocityPIDFCoefficients(FRONT_RIGHT_P * scale, FRONT_RIGHT_I * scale, FRONT_RIGHT_D * scale, FRONT_RIGHT_F * scale);
+    }
+
+    /**
+     * Scales the drive motors' velocity loops, which are tuned at NOMINAL_VOLTAGE.
+     * The hubs are only reprogrammed when the compensation has changed noticeably.
+     *
+     * @param compensation the BatteryVoltage compensation
+     */
+    public void setVoltageCompensation(double compensation) {
+        if(Math.abs(compensation - voltageCompensation) < VOLTAGE_COMPENSATION_STEP)
+            return;
+        voltageCompensation = compensation;
+        setVelocityPIDF(compensation);
     }
 
     /**
@@ -92,6 +127,10 @@ public class Drivetrain implements Constants {
      */
     public void driveTest(double power) {
         power = MathUtilities.clip( power, -1.0, 1.0);
+        backLeftPower = power;
+        backRightPower = power;
+        frontLeftPower = power;
+        frontRightPower = power;
         backLeft.setVelocity(power * MAX_SPIN_SPEED);
         backRight.setVelocity(power * MAX_SPIN_SPEED);
         frontLeft.setVelocity(power * MAX_SPIN_SPEED);
@@ -119,6 +158,7 @@ public class Drivetrain implements Constants {
         double corner2;
 
         if(fieldOriented) {
+            double heading = pose.get().getHeading();
             corner1 = power * Math.sin(Math.toRadians(MathUtilities.addAngles(angle, -45.0 + 90.0 - heading)));
             corner2 = power * Math.sin(Math.toRadians(MathUtilities.addAngles(angle, 45.0 + 90.0 - heading)));
         }
@@ -127,10 +167,25 @@ public class Drivetrain implements Constants {
             corner2 = power * Math.sin(Math.toRadians(MathUtilities.addAngles(angle, 45.0)));
         }
 
-        backLeft.setVelocity((corner1 + turn) * MAX_SPIN_SPEED);
-        backRight.setVelocity((corner2 - turn) * MAX_SPIN_SPEED);
-        frontLeft.setVelocity((corner2 + turn) * MAX_SPIN_SPEED);
-        frontRight.setVelocity((corner1 - turn) * MAX_SPIN_SPEED);
+        long now = System.nanoTime();
+        double maxStep = previousDriveTime == 0 ? Double.MAX_VALUE
+                : slipDetector.getAccelLimit() * (now - previousDriveTime) * 1.0E-9;
+        previousDriveTime = now;
+
+        backLeftPower = limitStep(backLeftPower, (corner1 + turn) * powerLimit, maxStep);
+        backRightPower = limitStep(backRightPower, (corner2 - turn) * powerLimit, maxStep);
+        frontLeftPower = limitStep(frontLeftPower, (corner2 + turn) * powerLimit, maxStep);
+        frontRightPower = limitStep(frontRightPower, (corner1 - turn) * powerLimit, maxStep);
+
+        backLeft.setVelocity(backLeftPower * MAX_SPIN_SPEED);
+        backRight.setVelocity(backRightPower * MAX_SPIN_SPEED);
+        frontLeft.setVelocity(frontLeftPower * MAX_SPIN_SPEED);
+        frontRight.setVelocity(frontRightPower * MAX_SPIN_SPEED);
+        commandTime = System.nanoTime();
+    }
+
+    private double limitStep(double previous, double desired, double maxStep) {
+        return previous + MathUtilities.clip(desired - previous, -maxStep, maxStep);
     }
 
     /**
@@ -139,7 +194,7 @@ public class Drivetrain implements Constants {
      * @return the turning speed as a proportion
      */
     public double turnToAngle() {
-        double error = MathUtilities.addAngles(heading, -desiredHeading);
+        double error = MathUtilities.addAngles(pose.get().getHeading(), -desiredHeading);
         if(Math.abs(error) < TURNING_ERROR)
             return 0.0;
         return MathUtilities.clip(error * TURNING_P, -AUTO_TURNING_GOVERNOR, AUTO_TURNING_GOVERNOR);
@@ -167,6 +222,9 @@ public class Drivetrain implements Constants {
      * @return the drive angle in degrees [-180, 180)
      */
     public double angleToVertex(double wx, double wy, boolean toIntake) {
+        Pose2d current = pose.get();
+        double x = current.getX();
+        double y = current.getY();
         if(x == wx)
             return toIntake ? 0.0 : -180.0;
         double offset = x > wx ? -180.0 : 0.0;
@@ -187,6 +245,9 @@ public class Drivetrain implements Constants {
      * @return the drive angle in degrees [-180, 180)
      */
     public double angleFromVertex(double wx, double wy, double h, boolean toIntake) {
+        Pose2d current = pose.get();
+        double x = current.getX();
+        double y = current.getY();
         if(x == h)
             return toIntake ? 0.0 : -180.0;
 
@@ -206,8 +267,9 @@ public class Drivetrain implements Constants {
      * area using parabolas in piecewise.
      */
     public void splineToIntake(double turn, boolean autoAlign) {
-        double distance = Math.sqrt(Math.pow(INTAKE_X - x, 2) +
-                Math.pow(isBlueAlliance ? BLUE_INTAKE_Y - y : RED_INTAKE_Y - y, 2) );
+        Pose2d current = pose.get();
+        double x = current.getX();
+        double distance = current.distanceTo(INTAKE_X, isBlueAlliance ? BLUE_INTAKE_Y : RED_INTAKE_Y);
         double power = distance >= SPLINE_ERROR ? MathUtilities.clip(SPLINE_P * distance
                 , -SPLINE_GOVERNOR, SPLINE_GOVERNOR) : 0.0;
 
@@ -227,8 +289,9 @@ public class Drivetrain implements Constants {
      * area using parabolas in piecewise.
      */
     public void splineToScoring(double turn, boolean autoAlign, double scoringY) {
-        double distance = Math.sqrt(Math.pow(SCORING_X - x, 2) +
-                Math.pow(scoringY - y, 2) );
+        Pose2d current = pose.get();
+        double x = current.getX();
+        double distance = current.distanceTo(SCORING_X, scoringY);
         double power = distance >= SPLINE_ERROR ? MathUtilities.clip(SPLINE_P * distance
                 , -SPLINE_GOVERNOR, SPLINE_GOVERNOR) : 0.0;
 
@@ -243,42 +306,99 @@ public class Drivetrain implements Constants {
         drive(power, angle, turn, autoAlign, true);
     }
 
+    /**
+     * Drives the last inches to a scoring point on the pose from a single
+     * backdrop tag, which is more accurate this close than the fused pose
+     *
+     * @param tagX the robot x from the tag
+     * @param tagY the robot y from the tag
+     * @param tagHeading the robot heading from the tag
+     * @param scoringY the y of the chosen column
+     *
+     * @return true once within BACKDROP_ERROR of the scoring point
+     */
+    public boolean servoToBackdrop(double tagX, double tagY, double tagHeading, double scoringY) {
+        double errorX = SCORING_X - tagX;
+        double errorY = scoringY - tagY;
+        double distance = Math.hypot(errorX, errorY);
+
+        // the error in the robot's frame, 90 degrees is forward
+        double heading = Math.toRadians(tagHeading);
+        double forward = errorX * Math.cos(heading) + errorY * Math.sin(heading);
+        double right = errorX * Math.sin(heading) - errorY * Math.cos(heading);
+        double power = distance >= BACKDROP_ERROR ? MathUtilities.clip(BACKDROP_P * distance
+                , -BACKDROP_GOVERNOR, BACKDROP_GOVERNOR) : 0.0;
+        double angle = Math.toDegrees(Math.atan2(forward, right));
+
+        double headingError = MathUtilities.addAngles(tagHeading, -desiredHeading);
+        double turn = Math.abs(headingError) < TURNING_ERROR ? 0.0
+                : MathUtilities.clip(headingError * TURNING_P, -AUTO_TURNING_GOVERNOR, AUTO_TURNING_GOVERNOR);
+
+        drive(power, angle, turn, false, false);
+        return distance < BACKDROP_ERROR;
+    }
+
+    /**
+     * Drives at a point on the field, turning to face it, while the driver
+     * sets the speed. Used to drive the intake onto a pixel.
+     *
+     * @param power the speed from the driver [0, 1]
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     */
+    public void driveToPoint(double power, double x, double y) {
+        Pose2d current = pose.get();
+        double angle = current.distanceTo(x, y) > FRONT_CAM_FORWARD_DIST
+                ? Math.toDegrees(Math.atan2(y - current.getY(), x - current.getX())) : desiredHeading;
+        desiredHeading = angle;
+        drive(power, angle, 0.0, true, true);
+    }
+
     /**
      * Updates Pose using Odometry Wheels
      */
     public void updateWithOdometry() {
+        long now = System.nanoTime();
         int currentLeft = leftDead.getCurrentPosition();
         int currentRight = rightDead.getCurrentPosition();
         int currentCenter = centerDead.getCurrentPosition();
+        double backLeftVelocity = backLeft.getVelocity();
+        double backRightVelocity = backRight.getVelocity();
+        double frontLeftVelocity = frontLeft.getVelocity();
+        double frontRightVelocity = frontRight.getVelocity();
+
+        if(recorder != null) {
+            recorder.recordOdometry(now, currentLeft, currentRight, currentCenter);
+            recorder.recordDriveVelocities(now, backLeftVelocity, backRightVelocity, frontLeftVelocity,
+                    frontRightVelocity, backLeftPower * MAX_SPIN_SPEED, backRightPower * MAX_SPIN_SPEED,
+                    frontLeftPower * MAX_SPIN_SPEED, frontRightPower * MAX_SPIN_SPEED);
+        }
 
-        int deltaLeft = currentLeft - previousLeft;
-        int deltaRight = currentRight - previousRight;
-        int deltaCenter = currentCenter - previousCenter;
-
-        double deltaHeading = (deltaRight - deltaLeft) * DEGREES_PER_TICK * HEADING_ODOMETRY_CORRECTION;
-        heading = MathUtilities.addAngles(heading, deltaHeading);
-
-        double deltaX = deltaCenter * INCHES_PER_TICK * STRAFE_ODOMETRY_CORRECTION;
-        double deltaY = (deltaLeft + deltaRight) * .5 * INCHES_PER_TICK * FORWARD_ODOMETRY_CORRECTION;
-
-        double inRadians = Math.toRadians(heading);
-        y += -deltaX * Math.cos(inRadians) + deltaY * Math.sin(inRadians);
-        x += deltaX * Math.sin(inRadians) + deltaY * Math.cos(inRadians);
-
-        previousLeft = currentLeft;
-        previousRight = currentRight;
-        previousCenter = currentCenter;
+        Twist2d twist = odometry.update(currentLeft, currentRight, currentCenter);
+        pose.set(pose.get().exp(twist));
+
+        if(previousOdometryTime != 0) {
+            double dt = (now - previousOdometryTime) * 1.0E-9;
+            motionHistory.add(now, twist.getDHeading() / dt);
+            slipDetector.update(
+                    backLeftPower * MAX_SPIN_SPEED, backRightPower * MAX_SPIN_SPEED,
+                    frontLeftPower * MAX_SPIN_SPEED, frontRightPower * MAX_SPIN_SPEED,
+                    backLeftVelocity, backRightVelocity, frontLeftVelocity, frontRightVelocity,
+                    twist.getDx() / dt, twist.getDy() / dt);
+        }
+        previousOdometryTime = now;
     }
 
     /**
-     * Updates the Robot Pose using April Tags
+     * Updates the Robot Pose using April Tags. The vision pose is blended in
+     * by the SlipDetector's trust weight, which is raised after slip or a
+     * collision until vision has confirmed the pose again.
      *
-     * @param pose the pose [x, y, theta]
+     * @param visionPose the pose measured by Vision
      */
-    public void updateWithAprilTags(double[] pose) {
-        this.x = pose[0];
-        this.y = pose[1];
-        this.heading = pose[2];
+    public void updateWithAprilTags(Pose2d visionPose) {
+        pose.set(pose.get().interpolate(visionPose, slipDetector.getVisionTrust()));
+        slipDetector.confirmPose();
     }
 
     /**
@@ -310,12 +430,68 @@ public class Drivetrain implements Constants {
     }
 
     /**
-     * Get the robot coordinates for telemetry
+     * Gets the latest published robot pose. Safe to call from any thread,
+     * the x, y and heading always come from the same update.
+     *
+     * @return the pose of the center of the bot
+     */
+    public Pose2d getPose() {
+        return pose.get();
+    }
+
+    /**
+     * Starts recording raw odometry and drive velocities to a match log
+     *
+     * @param recorder the recorder, null to stop recording
+     */
+    public void setRecorder(MatchRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Limits the wheel speeds, for the power manager
+     *
+     * @param limit the proportion of the commanded speeds allowed [0, 1]
+     */
+    public void setPowerLimit(double limit) {
+        powerLimit = limit;
+    }
+
+    /**
+     * The current drawn by the drive motors, each motor is a separate hub read
+     *
+     * @return the current in amps
+     */
+    public double getCurrent() {
+        return backLeft.getCurrent(CurrentUnit.AMPS) + backRight.getCurrent(CurrentUnit.AMPS)
+                + frontLeft.getCurrent(CurrentUnit.AMPS) + frontRight.getCurrent(CurrentUnit.AMPS);
+    }
+
+    /**
+     * When drive() last finished commanding the motors, for input latency
+     *
+     * @return the System.nanoTime() after the last setVelocity call
+     */
+    public long getCommandTime() {
+        return commandTime;
+    }
+
+    /**
+     * Gets the recent angular velocities from odometry, for vision gating
+     *
+     * @return the motion history
+     */
+    public MotionHistory getMotionHistory() {
+        return motionHistory;
+    }
+
+    /**
+     * Gets the slip and collision detector, for telemetry
      *
-     * @return the x and y value of the center of the bot
+     * @return the SlipDetector
      */
-    public double[] getXY() {
-        return new double[]{x, y};
+    public SlipDetector getSlipDetector() {
+        return slipDetector;
     }
 
     /**
@@ -324,6 +500,6 @@ public class Drivetrain implements Constants {
      * @return the heading in degrees [-180, 180)
      */
     public double getFieldHeading() {
-        return heading;
+        return pose.get().getHeading();
     }
 }
\ No newline at end of file
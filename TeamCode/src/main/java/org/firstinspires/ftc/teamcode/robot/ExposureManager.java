@@ -0,0 +1,153 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.robotcore.external.hardware.camera.controls.ExposureControl;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.controls.GainControl;
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.vision.VisionPortal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages the exposure and gain of one webcam for April Tag detection.
+ * Long exposures blur tags while driving, so once the camera is streaming
+ * it sweeps from the shortest exposure up at full gain, counting detections,
+ * and locks the shortest exposure that detects nearly as well as the best.
+ * While locked, it only re-tunes if the detection rate drops while tags
+ * are expected in view. Everything is non-blocking, call update in each loop
+ * including init_loop().
+ */
+public class ExposureManager implements Constants {
+    private enum State { WAITING_FOR_CAMERA, SETTLING, SAMPLING, LOCKED }
+
+    private final VisionPortal portal;
+    private ExposureControl exposureControl;
+    private State state;
+    private int minExposure, maxExposure;
+    private int sweepStart, sweepEnd;
+    private int exposure;
+    private double[] scores;
+    private long stateStart;
+    private int sampleLoops, sampleDetections;
+    private double lockedRate, rate;
+    private long lowRateStart;
+
+    /**
+     * Creates an ExposureManager
+     *
+     * @param portal the portal of the camera to manage
+     */
+    public ExposureManager(VisionPortal portal) {
+        this.portal = portal;
+        this.state = State.WAITING_FOR_CAMERA;
+    }
+
+    /**
+     * Runs the sweep or watches the detection rate, call in each loop
+     *
+     * @param numDetections the number of detections this loop
+     * @param tagExpected whether a tag is expected in view
+     * @param timeNanos the System.nanoTime() of the loop
+     */
+    public void update(int numDetections, boolean tagExpected, long timeNanos) {
+        double elapsed = (timeNanos - stateStart) * 1.0E-9;
+        switch(state) {
+            case WAITING_FOR_CAMERA:
+                if(portal.getCameraState() == VisionPortal.CameraState.STREAMING) {
+                    exposureControl = portal.getCameraControl(ExposureControl.class);
+                    GainControl gainControl = portal.getCameraControl(GainControl.class);
+                    minExposure = (int) exposureControl.getMinExposure(TimeUnit.MILLISECONDS) + 1;
+                    maxExposure = (int) exposureControl.getMaxExposure(TimeUnit.MILLISECONDS);
+                    exposureControl.setMode(ExposureControl.Mode.Manual);
+                    gainControl.setGain(gainControl.getMaxGain());
+                    startSweep(minExposure, Math.min(EXPOSURE_SWEEP_MAX, maxExposure), timeNanos);
+                }
+                break;
+            case SETTLING:
+                if(elapsed >= EXPOSURE_SETTLE_TIME) {
+                    sampleLoops = 0;
+                    sampleDetections = 0;
+                    setState(State.SAMPLING, timeNanos);
+                }
+                break;
+            case SAMPLING:
+                sampleLoops++;
+                sampleDetections += numDetections;
+                if(elapsed >= EXPOSURE_SAMPLE_TIME)
+                    nextExposure(timeNanos);
+                break;
+            case LOCKED:
+                rate += EXPOSURE_RATE_SMOOTHING * (numDetections - rate);
+                if(!tagExpected || rate >= EXPOSURE_RETUNE_FRACTION * lockedRate)
+                    lowRateStart = timeNanos;
+                else if((timeNanos - lowRateStart) * 1.0E-9 >= EXPOSURE_RETUNE_TIME)
+                    startSweep(Math.max(minExposure, exposure - EXPOSURE_SWEEP_STEP),
+                            Math.min(maxExposure, exposure + 2 * EXPOSURE_SWEEP_STEP), timeNanos);
+                break;
+        }
+    }
+
+    /**
+     * Whether the exposure is locked for the match
+     *
+     * @return true once a sweep has finished
+     */
+    public boolean isLocked() {
+        return state == State.LOCKED;
+    }
+
+    /**
+     * The exposure in use, for telemetry
+     *
+     * @return the exposure in milliseconds
+     */
+    public int getExposure() {
+        return exposure;
+    }
+
+    private void startSweep(int start, int end, long timeNanos) {
+        sweepStart = start;
+        sweepEnd = end;
+        scores = new double[end + 1];
+        setExposure(start, timeNanos);
+    }
+
+    private void nextExposure(long timeNanos) {
+        scores[exposure] = sampleLoops == 0 ? 0.0 : (double) sampleDetections / sampleLoops;
+        if(exposure + EXPOSURE_SWEEP_STEP <= sweepEnd) {
+            setExposure(exposure + EXPOSURE_SWEEP_STEP, timeNanos);
+            return;
+        }
+
+        double bestScore = 0.0;
+        for(int i = sweepStart; i <= sweepEnd; i += EXPOSURE_SWEEP_STEP)
+            bestScore = Math.max(bestScore, scores[i]);
+
+        // with no tags seen, fall back to the default and expect a tag per loop once one is in view
+        int acceptedExposure = EXPOSURE_DEFAULT;
+        lockedRate = 1.0;
+        if(bestScore > 0.0) {
+            for(int i = sweepStart; i <= sweepEnd; i += EXPOSURE_SWEEP_STEP)
+                if(scores[i] >= EXPOSURE_ACCEPT_FRACTION * bestScore) {
+                    acceptedExposure = i;
+                    lockedRate = scores[i];
+                    break;
+                }
+        }
+
+        setExposure(acceptedExposure, timeNanos);
+        rate = lockedRate;
+        lowRateStart = timeNanos;
+        setState(State.LOCKED, timeNanos);
+    }
+
+    private void setExposure(int exposureMs, long timeNanos) {
+        exposure = exposureMs;
+        exposureControl.setExposure(exposureMs, TimeUnit.MILLISECONDS);
+        setState(State.SETTLING, timeNanos);
+    }
+
+    private void setState(State newState, long timeNanos) {
+        state = newState;
+        stateStart = timeNanos;
+    }
+}
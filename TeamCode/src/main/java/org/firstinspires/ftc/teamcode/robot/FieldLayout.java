@@ -0,0 +1,210 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * The April Tag layout of the field, loaded once from a CSV file so a new
+ * season's field is a data change. Each tag's rotation is about the vertical
+ * axis, a row-major 3x3 matrix from the tag's frame (x out of its face) to
+ * the field. Vision loads the robot's copy from its resources.
+ */
+public class FieldLayout {
+    /** The layout file for desktop tools, relative to the project root */
+    public static final String LAYOUT_FILE = "TeamCode/src/main/res/raw/centerstage_field_layout.csv";
+
+    // the largest id in the 36h11 tag family
+    private static final int MAX_TAG_ID = 586;
+
+    private final boolean[] valid;
+    private final double[] x, y, z, facing;
+    private final double[] rotation;
+    private final double[] positionWeight, headingWeight;
+    private final int maxId;
+
+    /**
+     * Loads the layout from a file, for desktop tools
+     *
+     * @param path the path to the layout file
+     *
+     * @return the layout
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public static FieldLayout load(String path) throws IOException {
+        try(InputStream in = new FileInputStream(path)) {
+            return new FieldLayout(in);
+        }
+    }
+
+    /**
+     * Parses a layout. Each line is id, x, y, z, facing, position weight,
+     * heading weight. Blank lines and lines starting with # are ignored.
+     * Tags are upright on the field, so facing is the only rotation.
+     *
+     * @param in the layout data
+     *
+     * @throws IOException if the data cannot be read or is malformed
+     */
+    public FieldLayout(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        StringBuilder rows = new StringBuilder();
+        int highestId = 0;
+        String line;
+        while((line = reader.readLine()) != null) {
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] fields = line.split(",");
+            if(fields.length != 7)
+                throw new IOException("field layout line needs 7 values: " + line);
+            int id;
+            try {
+                id = Integer.parseInt(fields[0].trim());
+                for(int i = 1; i < fields.length; i++)
+                    Double.parseDouble(fields[i].trim());
+            } catch(NumberFormatException e) {
+                throw new IOException("field layout line has a value that is not a number: " + line);
+            }
+            if(id < 0 || id > MAX_TAG_ID)
+                throw new IOException("field layout tag id must be in [0, " + MAX_TAG_ID + "]: " + line);
+            highestId = Math.max(highestId, id);
+            rows.append(line).append('\n');
+        }
+
+        maxId = highestId;
+        valid = new boolean[maxId + 1];
+        x = new double[maxId + 1];
+        y = new double[maxId + 1];
+        z = new double[maxId + 1];
+        facing = new double[maxId + 1];
+        rotation = new double[(maxId + 1) * 9];
+        positionWeight = new double[maxId + 1];
+        headingWeight = new double[maxId + 1];
+
+        for(String row : rows.toString().split("\n")) {
+            String[] fields = row.split(",");
+            int id = Integer.parseInt(fields[0].trim());
+            if(valid[id])
+                throw new IOException("field layout has tag " + id + " twice");
+            valid[id] = true;
+            x[id] = Double.parseDouble(fields[1].trim());
+            y[id] = Double.parseDouble(fields[2].trim());
+            z[id] = Double.parseDouble(fields[3].trim());
+            facing[id] = Double.parseDouble(fields[4].trim());
+            positionWeight[id] = Double.parseDouble(fields[5].trim());
+            headingWeight[id] = Double.parseDouble(fields[6].trim());
+
+            double cos = Math.cos(Math.toRadians(facing[id]));
+            double sin = Math.sin(Math.toRadians(facing[id]));
+            int m = id * 9;
+            rotation[m] = cos;
+            rotation[m + 1] = -sin;
+            rotation[m + 3] = sin;
+            rotation[m + 4] = cos;
+            rotation[m + 8] = 1.0;
+        }
+    }
+
+    /**
+     * Whether a tag is on this field
+     *
+     * @param id the tag id
+     *
+     * @return true if the layout has the tag
+     */
+    public boolean hasTag(int id) {
+        return id >= 0 && id <= maxId && valid[id];
+    }
+
+    /**
+     * The highest tag id on the field
+     *
+     * @return the id
+     */
+    public int getMaxId() {
+        return maxId;
+    }
+
+    /**
+     * The x coordinate of a tag
+     *
+     * @param id the tag id
+     *
+     * @return x in inches
+     */
+    public double getX(int id) {
+        return x[id];
+    }
+
+    /**
+     * The y coordinate of a tag
+     *
+     * @param id the tag id
+     *
+     * @return y in inches
+     */
+    public double getY(int id) {
+        return y[id];
+    }
+
+    /**
+     * The height of a tag's center
+     *
+     * @param id the tag id
+     *
+     * @return z in inches
+     */
+    public double getZ(int id) {
+        return z[id];
+    }
+
+    /**
+     * The direction a tag's face points
+     *
+     * @param id the tag id
+     *
+     * @return the heading in degrees
+     */
+    public double getFacing(int id) {
+        return facing[id];
+    }
+
+    /**
+     * An entry of a tag's rotation matrix
+     *
+     * @param id the tag id
+     * @param row the row [0, 2]
+     * @param column the column [0, 2]
+     *
+     * @return the entry
+     */
+    public double getRotation(int id, int row, int column) {
+        return rotation[id * 9 + row * 3 + column];
+    }
+
+    /**
+     * How much a tag's position counts when fusing detections
+     *
+     * @param id the tag id
+     *
+     * @return the weight
+     */
+    public double getPositionWeight(int id) {
+        return positionWeight[id];
+    }
+
+    /**
+     * How much a tag's heading counts when fusing detections
+     *
+     * @param id the tag id
+     *
+     * @return the weight
+     */
+    public double getHeadingWeight(int id) {
+        return headingWeight[id];
+    }
+}
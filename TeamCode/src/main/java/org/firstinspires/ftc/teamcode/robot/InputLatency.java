@@ -0,0 +1,83 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.logging.MatchRecorder;
+import org.firstinspires.ftc.teamcode.utils.Constants;
+
+import java.util.Locale;
+
+/**
+ * Measures how long a driver's stick move takes to reach the drive motors.
+ * Each new gamepad packet is followed from its driver station timestamp,
+ * to when updateValues() saw it, to when Drivetrain.drive() finished its
+ * setVelocity calls. The two clocks are different, so the transport delay
+ * is reported above the fastest packet seen rather than absolutely.
+ * Latencies go into fixed millisecond histograms.
+ */
+public class InputLatency implements Constants {
+    private final int[] robotHistogram = new int[LATENCY_HISTOGRAM_MS + 1];
+    private final int[] transportHistogram = new int[LATENCY_HISTOGRAM_MS + 1];
+    private long lastSeenTime;
+    private long minClockOffset = Long.MAX_VALUE;
+    private double lastRobotLatency, lastTransportLatency;
+    private int count;
+
+    /**
+     * Measures the latest packet if it was seen this loop, call after driving
+     *
+     * @param packetTimestamp the packet's Gamepad.timestamp in milliseconds
+     * @param seenTime the System.nanoTime() updateValues() saw the packet
+     * @param commandTime the System.nanoTime() drive() last commanded the motors
+     * @param recorder the match recorder, null if not recording
+     */
+    public void update(long packetTimestamp, long seenTime, long commandTime, MatchRecorder recorder) {
+        if(seenTime == lastSeenTime || commandTime < seenTime)
+            return;
+        lastSeenTime = seenTime;
+
+        long clockOffset = seenTime - packetTimestamp * 1000000L;
+        minClockOffset = Math.min(minClockOffset, clockOffset);
+        lastRobotLatency = (commandTime - seenTime) * 1.0E-6;
+        lastTransportLatency = (clockOffset - minClockOffset) * 1.0E-6;
+        robotHistogram[bin(lastRobotLatency)]++;
+        transportHistogram[bin(lastTransportLatency)]++;
+        count++;
+
+        if(recorder != null)
+            recorder.recordInputLatency(commandTime, packetTimestamp, seenTime, commandTime);
+    }
+
+    /**
+     * The latency distribution for telemetry
+     *
+     * @return the last, median and 95th percentile latencies on the robot and in transport
+     */
+    public String getReport() {
+        return String.format(Locale.US, "robot %.1f ms (p50 %d, p95 %d), transport +%.1f ms (p50 %d, p95 %d)",
+                lastRobotLatency, percentile(robotHistogram, 50), percentile(robotHistogram, 95),
+                lastTransportLatency, percentile(transportHistogram, 50), percentile(transportHistogram, 95));
+    }
+
+    /**
+     * The number of packets measured
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private int bin(double latency) {
+        return (int) Math.min(Math.max(latency, 0.0), LATENCY_HISTOGRAM_MS);
+    }
+
+    private int percentile(int[] histogram, double percentile) {
+        int target = (int) Math.ceil(percentile / 100.0 * count);
+        int seen = 0;
+        for(int ms = 0; ms < histogram.length; ms++) {
+            seen += histogram[ms];
+            if(seen >= target && seen > 0)
+                return ms;
+        }
+        return 0;
+    }
+}
@@ -12,6 +12,8 @@ public class Intake implements Constants {
 
     private final Servo leftServo;
     private final Servo rightServo;
+    private boolean raised;
+    private long moveStart;
 
     /**
      * Initializes pan servos (linear actuators)
@@ -19,6 +21,10 @@ public class Intake implements Constants {
     public Intake(HardwareMap hwMap) {
         leftServo = hwMap.get(Servo.class, "leftDust");
         rightServo = hwMap.get(Servo.class, "rightDust");
+
+        // where the pan starts is unknown, so treat it as moving
+        raised = true;
+        moveStart = System.nanoTime();
     }
     /**
      * Raises or lowers the intake pan.
@@ -26,10 +32,33 @@ public class Intake implements Constants {
      * @param isRaising whether to raise the pan
      */
     public void setPanPos(boolean isRaising) {
+        if(isRaising != raised) {
+            raised = isRaising;
+            moveStart = System.nanoTime();
+        }
         leftServo.setPosition(isRaising ? INTAKE_UP_POSITION : INTAKE_DOWN_POSITION);
         rightServo.setPosition(isRaising ? INTAKE_UP_POSITION : INTAKE_DOWN_POSITION);
     }
 
+    /**
+     * Whether the pan was last told to raise
+     *
+     * @return true if raised or raising
+     */
+    public boolean isRaised() {
+        return raised;
+    }
+
+    /**
+     * Whether the pan may still be travelling to its last position,
+     * the servos have no feedback so this is timed
+     *
+     * @return true for INTAKE_TRAVEL_TIME after the pan is told to move
+     */
+    public boolean isMoving() {
+        return (System.nanoTime() - moveStart) * 1.0E-9 < INTAKE_TRAVEL_TIME;
+    }
+
     /**
      * Get the servo positions for telemetry
      *
@@ -0,0 +1,53 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+
+/**
+ * A short history of the robot's angular velocity from odometry, kept in
+ * fixed arrays so Vision can look up how fast the robot was turning when
+ * a camera frame was captured.
+ */
+public class MotionHistory implements Constants {
+    private final long[] times = new long[MOTION_HISTORY_SIZE];
+    private final double[] angularVelocities = new double[MOTION_HISTORY_SIZE];
+    private int newest = -1;
+    private int size;
+
+    /**
+     * Adds an odometry sample, call once per odometry update
+     *
+     * @param timeNanos the System.nanoTime() at the end of the sample's interval
+     * @param angularVelocity the angular velocity over the interval in degrees per second
+     */
+    public void add(long timeNanos, double angularVelocity) {
+        newest = (newest + 1) % MOTION_HISTORY_SIZE;
+        times[newest] = timeNanos;
+        angularVelocities[newest] = angularVelocity;
+        size = Math.min(size + 1, MOTION_HISTORY_SIZE);
+    }
+
+    /**
+     * The angular velocity over the odometry interval that contains a time
+     *
+     * @param timeNanos the System.nanoTime() to look up
+     *
+     * @return the angular velocity in degrees per second, the newest if the
+     *         time is after every sample, NaN if it is before them
+     */
+    public double getAngularVelocity(long timeNanos) {
+        if(size == 0)
+            return Double.NaN;
+        if(timeNanos >= times[newest])
+            return angularVelocities[newest];
+
+        // walk back to the oldest sample that still ends after the time
+        int index = newest;
+        for(int i = 1; i < size; i++) {
+            int previous = (newest - i + MOTION_HISTORY_SIZE) % MOTION_HISTORY_SIZE;
+            if(times[previous] < timeNanos)
+                return angularVelocities[index];
+            index = previous;
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,38 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.teamcode.utils.Twist2d;
+
+/**
+ * Three dead wheel odometry math, kept free of hardware so the
+ * same code runs on the robot and in log replay.
+ */
+public class Odometry implements Constants {
+    private int previousLeft, previousRight, previousCenter;
+
+    /**
+     * Converts the latest raw dead wheel positions into the
+     * robot-relative motion since the last update
+     *
+     * @param currentLeft the left dead wheel position in ticks
+     * @param currentRight the right dead wheel position in ticks
+     * @param currentCenter the center dead wheel position in ticks
+     *
+     * @return the motion since the last update
+     */
+    public Twist2d update(int currentLeft, int currentRight, int currentCenter) {
+        int deltaLeft = currentLeft - previousLeft;
+        int deltaRight = currentRight - previousRight;
+        int deltaCenter = currentCenter - previousCenter;
+
+        previousLeft = currentLeft;
+        previousRight = currentRight;
+        previousCenter = currentCenter;
+
+        double deltaHeading = (deltaRight - deltaLeft) * DEGREES_PER_TICK * HEADING_ODOMETRY_CORRECTION;
+        double deltaX = deltaCenter * INCHES_PER_TICK * STRAFE_ODOMETRY_CORRECTION;
+        double deltaY = (deltaLeft + deltaRight) * .5 * INCHES_PER_TICK * FORWARD_ODOMETRY_CORRECTION;
+
+        return new Twist2d(deltaX, deltaY, deltaHeading);
+    }
+}
@@ -0,0 +1,208 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import org.firstinspires.ftc.robotcore.internal.camera.calibration.CameraCalibration;
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.vision.VisionProcessor;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Finds the nearest pixel on the floor in front of the front camera by color
+ */
+public class PixelProcessor implements VisionProcessor, Constants {
+    // OpenCV HSV, hue is [0, 180)
+    private static final Scalar WHITE_LOW = new Scalar(0, 0, 200);
+    private static final Scalar WHITE_HIGH = new Scalar(180, 40, 255);
+    private static final Scalar YELLOW_LOW = new Scalar(15, 100, 120);
+    private static final Scalar YELLOW_HIGH = new Scalar(35, 255, 255);
+    private static final Scalar GREEN_LOW = new Scalar(40, 80, 80);
+    private static final Scalar GREEN_HIGH = new Scalar(80, 255, 255);
+    private static final Scalar PURPLE_LOW = new Scalar(125, 50, 80);
+    private static final Scalar PURPLE_HIGH = new Scalar(160, 255, 255);
+
+    private final Paint roiPaint;
+    private final Paint targetPaint;
+    private Size smallSize;
+    private Mat small, roi, hsv, mask, colorMask;
+    private byte[] maskData;
+    private int roiTop, roiWidth, roiHeight;
+    private double centerX, centerY, focalLength;
+
+    private boolean found;
+    private double bearing, distance;
+    private float targetColumn, targetRow;
+    private long captureTimeNanos;
+
+    /**
+     * Creates the processor, add it to the front portal
+     */
+    public PixelProcessor() {
+        roiPaint = new Paint();
+        roiPaint.setColor(Color.CYAN);
+        roiPaint.setStyle(Paint.Style.STROKE);
+        roiPaint.setStrokeWidth(4);
+        targetPaint = new Paint();
+        targetPaint.setColor(Color.MAGENTA);
+        targetPaint.setStyle(Paint.Style.STROKE);
+        targetPaint.setStrokeWidth(6);
+    }
+
+    @Override
+    public void init(int width, int height, CameraCalibration calibration) {
+        int smallWidth = width / PIXEL_DOWNSCALE;
+        int smallHeight = height / PIXEL_DOWNSCALE;
+        roiTop = (int) (smallHeight * PIXEL_ROI_TOP);
+        roiWidth = smallWidth;
+        roiHeight = smallHeight - roiTop;
+
+        smallSize = new Size(smallWidth, smallHeight);
+        // frames arrive RGBA, a matching type keeps resize from reallocating under roi
+        small = new Mat(smallHeight, smallWidth, CvType.CV_8UC4);
+        roi = small.submat(new Rect(0, roiTop, roiWidth, roiHeight));
+        hsv = new Mat(roiHeight, roiWidth, CvType.CV_8UC3);
+        mask = new Mat(roiHeight, roiWidth, CvType.CV_8UC1);
+        colorMask = new Mat(roiHeight, roiWidth, CvType.CV_8UC1);
+        maskData = new byte[roiWidth * roiHeight];
+
+        centerX = smallWidth / 2.0;
+        centerY = smallHeight / 2.0;
+        focalLength = centerX / Math.tan(Math.toRadians(CAMERA_HALF_FOV));
+    }
+
+    @Override
+    public Object processFrame(Mat frame, long captureTimeNanos) {
+        Imgproc.resize(frame, small, smallSize, 0, 0, Imgproc.INTER_AREA);
+        Imgproc.cvtColor(roi, hsv, Imgproc.COLOR_RGBA2HSV);
+
+        Core.inRange(hsv, WHITE_LOW, WHITE_HIGH, mask);
+        Core.inRange(hsv, YELLOW_LOW, YELLOW_HIGH, colorMask);
+        Core.bitwise_or(mask, colorMask, mask);
+        Core.inRange(hsv, GREEN_LOW, GREEN_HIGH, colorMask);
+        Core.bitwise_or(mask, colorMask, mask);
+        Core.inRange(hsv, PURPLE_LOW, PURPLE_HIGH, colorMask);
+        Core.bitwise_or(mask, colorMask, mask);
+        mask.get(0, 0, maskData);
+
+        // the lowest row with a long enough run of matches is the nearest pixel
+        int nearestRow = -1;
+        int runStart = 0;
+        int runEnd = 0;
+        for(int row = roiHeight - 1; row >= 0 && nearestRow < 0; row--) {
+            int offset = row * roiWidth;
+            int start = 0;
+            int length = 0;
+            for(int column = 0; column <= roiWidth; column++) {
+                if(column < roiWidth && maskData[offset + column] != 0) {
+                    if(length == 0)
+                        start = column;
+                    length++;
+                }
+                else {
+                    if(length >= PIXEL_MIN_ROW_COUNT && length > runEnd - runStart) {
+                        nearestRow = row;
+                        runStart = start;
+                        runEnd = start + length;
+                    }
+                    length = 0;
+                }
+            }
+        }
+
+        if(nearestRow < 0) {
+            setResult(false, 0.0, 0.0, 0.0f, 0.0f, captureTimeNanos);
+            return null;
+        }
+
+        // average the matches above the run for a steadier bearing
+        long columnSum = 0;
+        int count = 0;
+        for(int row = Math.max(0, nearestRow - PIXEL_BAND_ROWS); row <= nearestRow; row++) {
+            int offset = row * roiWidth;
+            for(int column = runStart; column < runEnd; column++)
+                if(maskData[offset + column] != 0) {
+                    columnSum += column;
+                    count++;
+                }
+        }
+        double column = (double) columnSum / count + 0.5;
+        double row = nearestRow + roiTop + 0.5;
+
+        double angleBelow = Math.toRadians(FRONT_CAM_TILT) + Math.atan((row - centerY) / focalLength);
+        if(angleBelow <= 0.0) {
+            setResult(false, 0.0, 0.0, 0.0f, 0.0f, captureTimeNanos);
+            return null;
+        }
+        double pixelBearing = Math.atan((centerX - column) / focalLength);
+        double floorDistance = FRONT_CAM_HEIGHT / Math.tan(angleBelow);
+
+        setResult(true, Math.toDegrees(pixelBearing), floorDistance / Math.cos(pixelBearing),
+                (float) column, (float) row, captureTimeNanos);
+        return null;
+    }
+
+    @Override
+    public void onDrawFrame(Canvas canvas, int onscreenWidth, int onscreenHeight, float scaleBmpPxToCanvasPx,
+                            float scaleCanvasDensity, Object userContext) {
+        float scale = scaleBmpPxToCanvasPx * PIXEL_DOWNSCALE;
+        canvas.drawRect(0, roiTop * scale, roiWidth * scale, (roiTop + roiHeight) * scale, roiPaint);
+        synchronized(this) {
+            if(found)
+                canvas.drawCircle(targetColumn * scale, targetRow * scale, 4 * scale, targetPaint);
+        }
+    }
+
+    /**
+     * Whether the last frame had a pixel in it
+     *
+     * @return true if a pixel was found
+     */
+    public synchronized boolean hasPixel() {
+        return found;
+    }
+
+    /**
+     * The bearing of the nearest pixel from the front camera, positive to the left
+     *
+     * @return the bearing in degrees
+     */
+    public synchronized double getBearing() {
+        return bearing;
+    }
+
+    /**
+     * The distance along the floor from the front camera to the nearest pixel
+     *
+     * @return the distance in inches
+     */
+    public synchronized double getDistance() {
+        return distance;
+    }
+
+    /**
+     * When the last frame was captured
+     *
+     * @return the System.nanoTime() of the capture
+     */
+    public synchronized long getCaptureTimeNanos() {
+        return captureTimeNanos;
+    }
+
+    private synchronized void setResult(boolean found, double bearing, double distance, float column, float row,
+                                        long captureTimeNanos) {
+        this.found = found;
+        this.bearing = bearing;
+        this.distance = distance;
+        this.targetColumn = column;
+        this.targetRow = row;
+        this.captureTimeNanos = captureTimeNanos;
+    }
+}
@@ -0,0 +1,123 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.teamcode.utils.MathUtilities;
+
+import java.util.Locale;
+
+/**
+ * Keeps the battery above brownout by sharing power between the drive, the
+ * arm and the winch. The voltage comes from BatteryVoltage, and each
+ * group's current is read in turn, one group per sample, so the extra hub
+ * reads are spread across loops. While the voltage sags below
+ * POWER_TARGET_VOLTAGE or the total current is over budget, output is shed,
+ * lowest priority subsystem first, and given back slowly once it recovers.
+ * Which subsystem has priority depends on the mode.
+ */
+public class PowerManager implements Constants {
+    /** What the robot is doing, which decides whose power is cut first */
+    public enum Mode { DRIVE, SCORE, CLIMB }
+
+    private static final int DRIVE = 0, ARM = 1, WINCH = 2;
+    // the subsystems of each mode from highest to lowest priority
+    private static final int[][] PRIORITIES = {
+            { DRIVE, ARM, WINCH },
+            { ARM, DRIVE, WINCH },
+            { WINCH, ARM, DRIVE } };
+
+    private final BatteryVoltage battery;
+    private final Drivetrain drivetrain;
+    private final Arm arm;
+    private final double[] currents = new double[3];
+    private final double[] limits = { 1.0, 1.0, 1.0 };
+    private Mode mode = Mode.DRIVE;
+    private double cut;
+    private int nextSample;
+    private long lastSampleTime;
+
+    /**
+     * Creates a PowerManager
+     *
+     * @param battery the battery voltage, updated before this each loop
+     * @param drivetrain the drivetrain
+     * @param arm the arm, which also runs the winch
+     */
+    public PowerManager(BatteryVoltage battery, Drivetrain drivetrain, Arm arm) {
+        this.battery = battery;
+        this.drivetrain = drivetrain;
+        this.arm = arm;
+    }
+
+    /**
+     * Sets which subsystem gets power first
+     *
+     * @param mode the mode
+     */
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Takes the next sample if one is due and updates the limits, call in each loop
+     *
+     * @param timeNanos the System.nanoTime() of the loop
+     */
+    public void update(long timeNanos) {
+        double dt = (timeNanos - lastSampleTime) * 1.0E-9;
+        if(lastSampleTime != 0 && dt < POWER_SAMPLE_PERIOD)
+            return;
+        dt = lastSampleTime == 0 ? 0.0 : Math.min(dt, 3 * POWER_SAMPLE_PERIOD);
+        lastSampleTime = timeNanos;
+
+        switch(nextSample) {
+            case DRIVE:
+                currents[DRIVE] = drivetrain.getCurrent();
+                break;
+            case ARM:
+                currents[ARM] = arm.getCurrent();
+                break;
+            case WINCH:
+                currents[WINCH] = arm.getWinchCurrent();
+                break;
+        }
+        nextSample = (nextSample + 1) % currents.length;
+
+        double voltage = battery.getVoltage();
+        // a brownout is close, drop straight to the top priority subsystem
+        if(voltage < POWER_BROWNOUT_VOLTAGE)
+            cut = Math.max(cut, 2.0);
+        else if(voltage < POWER_TARGET_VOLTAGE || getTotalCurrent() > POWER_MAX_CURRENT)
+            cut += POWER_CUT_RATE * dt;
+        else
+            cut -= POWER_RECOVERY_RATE * dt;
+        cut = MathUtilities.clip(cut, 0.0, 2.0 + (1.0 - POWER_MIN_LIMIT));
+
+        // the lowest priority loses its share first, then the next
+        int[] priorities = PRIORITIES[mode.ordinal()];
+        for(int rank = 0; rank < priorities.length; rank++)
+            limits[priorities[rank]] = MathUtilities.clip(priorities.length - rank - cut, POWER_MIN_LIMIT, 1.0);
+
+        drivetrain.setPowerLimit(limits[DRIVE]);
+        arm.setPowerLimit(limits[ARM]);
+        arm.setWinchLimit(limits[WINCH]);
+    }
+
+    /**
+     * The estimated total draw of the drive, arm and winch
+     *
+     * @return the current in amps
+     */
+    public double getTotalCurrent() {
+        return currents[DRIVE] + currents[ARM] + currents[WINCH];
+    }
+
+    /**
+     * The voltage, draw and limits, for telemetry
+     *
+     * @return the report
+     */
+    public String getReport() {
+        return String.format(Locale.US, "%s %.1f V %.1f A, limits (drive %.2f, arm %.2f, winch %.2f)",
+                mode, battery.getVoltage(), getTotalCurrent(), limits[DRIVE], limits[ARM], limits[WINCH]);
+    }
+}
@@ -0,0 +1,63 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.vision.VisionPortal;
+
+/**
+ * Finds the team prop with the front camera during the autos' init.
+ * Close it at the start of the match so the auto gets the whole CPU.
+ */
+public class PropDetector implements Constants {
+    private final PropProcessor propProcessor;
+    private final VisionPortal visionPortal;
+    private boolean closed;
+
+    /**
+     * Instantiates the prop detector and starts the front camera
+     *
+     * @param hwMap the hardware map
+     * @param isBlueAlliance whether to look for the blue prop rather than the red one
+     */
+    public PropDetector(HardwareMap hwMap, boolean isBlueAlliance) {
+        propProcessor = new PropProcessor(isBlueAlliance);
+
+        VisionPortal.Builder visionPortalBuilder = new VisionPortal.Builder();
+        visionPortalBuilder.setCamera(hwMap.get(WebcamName.class, "Webcam 1"));
+        visionPortalBuilder.setStreamFormat(VisionPortal.StreamFormat.YUY2);
+        visionPortalBuilder.addProcessor(propProcessor);
+        visionPortalBuilder.enableLiveView(!COMPETITION_MODE);
+        visionPortal = visionPortalBuilder.build();
+    }
+
+    /**
+     * The spike mark the prop is on, from the recent frames' vote
+     *
+     * @return PropProcessor.LEFT, CENTER or RIGHT
+     */
+    public int getSpikeMark() {
+        return propProcessor.getSpikeMark();
+    }
+
+    /**
+     * The fraction of recent frames that agree with getSpikeMark()
+     *
+     * @return the confidence [0, 1]
+     */
+    public double getConfidence() {
+        return propProcessor.getConfidence();
+    }
+
+    /**
+     * Stops the processor and closes the camera, call at the start of the match
+     */
+    public void close() {
+        if(closed)
+            return;
+        visionPortal.setProcessorEnabled(propProcessor, false);
+        visionPortal.close();
+        closed = true;
+    }
+}
@@ -0,0 +1,148 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import org.firstinspires.ftc.robotcore.internal.camera.calibration.CameraCalibration;
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.vision.VisionProcessor;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Finds which spike mark the team prop is on from the alliance chroma
+ * (Cb for blue, Cr for red) in three regions, voted over PROP_VOTE_FRAMES frames
+ */
+public class PropProcessor implements VisionProcessor, Constants {
+    /** The prop is on the spike mark to the camera's left */
+    public static final int LEFT = 0;
+    /** The prop is on the center spike mark */
+    public static final int CENTER = 1;
+    /** The prop is on the spike mark to the camera's right */
+    public static final int RIGHT = 2;
+
+    private static final int NO_VOTE = -1;
+
+    private final int chromaChannel;
+    private final Paint regionPaint;
+    private final Paint chosenPaint;
+    private final int[] corner = new int[1];
+    private final double[] means = new double[3];
+    private final int[] votes = new int[PROP_VOTE_FRAMES];
+    private final int[] counts = new int[3];
+    private int nextVote;
+    private Size smallSize;
+    private Mat small, yCrCb, chroma, integral;
+    private int top, bottom, width;
+
+    /**
+     * Creates the processor
+     *
+     * @param isBlueAlliance whether to look for the blue prop rather than the red one
+     */
+    public PropProcessor(boolean isBlueAlliance) {
+        chromaChannel = isBlueAlliance ? 2 : 1;
+        regionPaint = new Paint();
+        regionPaint.setColor(Color.WHITE);
+        regionPaint.setStyle(Paint.Style.STROKE);
+        regionPaint.setStrokeWidth(4);
+        chosenPaint = new Paint();
+        chosenPaint.setColor(Color.GREEN);
+        chosenPaint.setStyle(Paint.Style.STROKE);
+        chosenPaint.setStrokeWidth(8);
+        for(int i = 0; i < votes.length; i++)
+            votes[i] = NO_VOTE;
+    }
+
+    @Override
+    public void init(int width, int height, CameraCalibration calibration) {
+        int smallWidth = width / PROP_DOWNSCALE;
+        int smallHeight = height / PROP_DOWNSCALE;
+        this.width = smallWidth;
+        top = (int) (smallHeight * PROP_ROI_TOP);
+        bottom = (int) (smallHeight * PROP_ROI_BOTTOM);
+
+        smallSize = new Size(smallWidth, smallHeight);
+        // frames arrive RGBA, a matching type keeps resize from reallocating
+        small = new Mat(smallHeight, smallWidth, CvType.CV_8UC4);
+        yCrCb = new Mat(smallHeight, smallWidth, CvType.CV_8UC3);
+        chroma = new Mat(smallHeight, smallWidth, CvType.CV_8UC1);
+        integral = new Mat(smallHeight + 1, smallWidth + 1, CvType.CV_32S);
+    }
+
+    @Override
+    public Object processFrame(Mat frame, long captureTimeNanos) {
+        Imgproc.resize(frame, small, smallSize, 0, 0, Imgproc.INTER_AREA);
+        Imgproc.cvtColor(small, yCrCb, Imgproc.COLOR_RGB2YCrCb);
+        Core.extractChannel(yCrCb, chroma, chromaChannel);
+        Imgproc.integral(chroma, integral, CvType.CV_32S);
+
+        int best = LEFT;
+        for(int region = 0; region < 3; region++) {
+            int left = region * width / 3;
+            int right = (region + 1) * width / 3;
+            long sum = getIntegral(bottom, right) - getIntegral(top, right)
+                    - getIntegral(bottom, left) + getIntegral(top, left);
+            means[region] = (double) sum / ((right - left) * (bottom - top));
+            if(means[region] > means[best])
+                best = region;
+        }
+
+        double secondBest = 0.0;
+        for(int region = 0; region < 3; region++)
+            if(region != best)
+                secondBest = Math.max(secondBest, means[region]);
+        addVote(means[best] - secondBest >= PROP_MIN_CONTRAST ? best : NO_VOTE);
+        return null;
+    }
+
+    @Override
+    public void onDrawFrame(Canvas canvas, int onscreenWidth, int onscreenHeight, float scaleBmpPxToCanvasPx,
+                            float scaleCanvasDensity, Object userContext) {
+        float scale = scaleBmpPxToCanvasPx * PROP_DOWNSCALE;
+        int chosen = getSpikeMark();
+        for(int region = 0; region < 3; region++)
+            canvas.drawRect(region * width / 3 * scale, top * scale, (region + 1) * width / 3 * scale,
+                    bottom * scale, region == chosen ? chosenPaint : regionPaint);
+    }
+
+    /**
+     * The spike mark with the most votes, CENTER if no frame has voted
+     *
+     * @return LEFT, CENTER or RIGHT
+     */
+    public synchronized int getSpikeMark() {
+        int best = CENTER;
+        for(int region = 0; region < 3; region++)
+            if(counts[region] > counts[best])
+                best = region;
+        return best;
+    }
+
+    /**
+     * The fraction of recent frames that voted for the chosen spike mark
+     *
+     * @return the confidence [0, 1]
+     */
+    public synchronized double getConfidence() {
+        return (double) counts[getSpikeMark()] / votes.length;
+    }
+
+    private synchronized void addVote(int vote) {
+        if(votes[nextVote] != NO_VOTE)
+            counts[votes[nextVote]]--;
+        votes[nextVote] = vote;
+        if(vote != NO_VOTE)
+            counts[vote]++;
+        nextVote = (nextVote + 1) % votes.length;
+    }
+
+    private int getIntegral(int row, int column) {
+        integral.get(row, column, corner);
+        return corner[0];
+    }
+}
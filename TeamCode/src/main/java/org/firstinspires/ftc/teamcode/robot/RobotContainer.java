@@ -3,10 +3,16 @@ package org.firstinspires.ftc.teamcode.robot;
 import com.qualcomm.hardware.rev.RevBlinkinLedDriver;
 import com.qualcomm.robotcore.hardware.Gamepad;
 import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.util.RobotLog;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.teamcode.controller.GameController;
+import org.firstinspires.ftc.teamcode.controller.ResponseCurve;
+import org.firstinspires.ftc.teamcode.logging.MatchRecorder;
 import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
+
+import java.io.IOException;
 
 //TODO: test and troubleshoot full blue AND RED alliance controls, including drone launch
 //TODO: autos
@@ -22,10 +28,16 @@ public class RobotContainer implements Constants {
     private final Intake intake;
     private final Arm arm;
     private final Hand hand;
+    private final ArmMacros macros;
+    private final CollisionEnvelope envelope;
+    private final BatteryVoltage battery;
+    private final PowerManager powerManager;
     private final IndicatorLights lights;
     private final Vision vision;
     private final GameController driverOI;
     private final GameController operatorOI;
+    private MatchRecorder recorder;
+    private final InputLatency inputLatency;
     private final Telemetry telemetry;
     private double power;
     private double angle;
@@ -35,7 +47,11 @@ public class RobotContainer implements Constants {
     private boolean splineToIntake;
     private boolean splineToScoring;
     private double splineScoringY;
+    private boolean pixelAssist;
+    private boolean backdropServo;
+    private final double[] backdropPose = new double[3];
     private boolean fourbar;
+    private double armHoldAngle;
 
     /**
      * Initialize the RobotContainer object
@@ -56,14 +72,60 @@ public class RobotContainer implements Constants {
         intake = new Intake(hwMap);
         arm = new Arm(hwMap);
         hand = new Hand(hwMap, clawStartingPos);
-        hand.setClawPos(1.0);
+        hand.setClawPos(CLAW_RELEASE_POSITION);
+        envelope = new CollisionEnvelope(intake);
+        arm.setEnvelope(envelope);
+        macros = new ArmMacros(arm, hand);
+        battery = new BatteryVoltage(hwMap);
+        powerManager = new PowerManager(battery, drivetrain, arm);
+        armHoldAngle = arm.getArmAngle();
         lights = new IndicatorLights(hwMap, alliance);
-        vision = new Vision(hwMap);
+        inputLatency = new InputLatency();
+        vision = new Vision(hwMap, COMPETITION_MODE);
+        vision.setMotionHistory(drivetrain.getMotionHistory());
 
         driverOI = new GameController(g1);
         operatorOI = new GameController(g2);
+        driverOI.setLeftStickCurve(ResponseCurve.expo(DRIVE_EXPO));
+        driverOI.right_stick_x.setCurve(ResponseCurve.expo(TURN_EXPO));
+        arm.setPlaneLauncher(false);
+        configureBindings();
 
         this.telemetry = telemetry;
+
+        if(RECORD_MATCHES) {
+            try {
+                recorder = new MatchRecorder(alliance ? "blue" : "red");
+                drivetrain.setRecorder(recorder);
+                vision.setRecorder(recorder);
+                driverOI.setRecorder(recorder, 0);
+                operatorOI.setRecorder(recorder, 1);
+            } catch(IOException e) {
+                RobotLog.ee("RobotContainer", e, "could not start the match recorder");
+            }
+        }
+    }
+
+    /**
+     * Runs the vision exposure sweep before the match, call in init_loop() of the teleop
+     */
+    public void initLoop() {
+        // the pose is not known until the first tag, so run both cameras
+        vision.schedule(drivetrain.getPose(), false);
+        vision.update();
+        telemetry.addData("exposure (front, back)", vision.getExposures());
+        telemetry.update();
+    }
+
+    /**
+     * Stops the robot, call in stop() of the teleop
+     */
+    public void stop() {
+        RobotLog.ii("Vision", vision.getDecimationReport());
+        if(recorder != null) {
+            recorder.close();
+            recorder = null;
+        }
     }
 
     /**
@@ -83,18 +145,91 @@ public class RobotContainer implements Constants {
         driverOI.updateValues();
         operatorOI.updateValues();
 
-        //arm.update();
+        arm.update();
+
+        battery.update(System.nanoTime());
+        drivetrain.setVoltageCompensation(battery.getCompensation());
+        arm.setVoltageCompensation(battery.getCompensation());
+        if(operatorOI.left_trigger.get() > 0.0 || operatorOI.right_trigger.get() > 0.0)
+            powerManager.setMode(PowerManager.Mode.CLIMB);
+        else if(macros.isActive() || operatorOI.left_stick_y.get() != 0.0)
+            powerManager.setMode(PowerManager.Mode.SCORE);
+        else
+            powerManager.setMode(PowerManager.Mode.DRIVE);
+        powerManager.update(System.nanoTime());
+
         drivetrain.updateWithOdometry();
 
 //        if(!driverOI.start.get() && !operatorOI.start.get())
 //            return;
-        double[] pose = vision.update();
+        vision.schedule(drivetrain.getPose(), !drivetrain.getSlipDetector().isPoseUnconfirmed());
+        Pose2d pose = vision.update();
         if(pose != null)
             drivetrain.updateWithAprilTags(pose);
     }
 
+    /**
+     * Binds every button control, the sticks and triggers are read in the control methods
+     */
+    private void configureBindings() {
+        driverOI.onPress(() -> setHeadingIfAligning(alliance ? 90.0 : -90.0), driverOI.y);
+        driverOI.onPress(() -> setHeadingIfAligning(alliance ? -90.0 : 90.0), driverOI.a);
+        driverOI.onPress(() -> setHeadingIfAligning(alliance ? 0.0 : -180.0), driverOI.b);
+        driverOI.onPress(() -> setHeadingIfAligning(alliance ? -180.0 : 0.0), driverOI.x);
+        driverOI.toggle(state -> fieldOriented = !state, driverOI.back);
+        driverOI.onPress(() -> vision.saveSnapshot("teleop-" + System.currentTimeMillis()), driverOI.start);
+
+        if(alliance) {
+            driverOI.onPress(() -> startSplineToScoring(BLUE_SCORING_Y_MED), driverOI.dpad_left);
+            driverOI.onPress(() -> splineToIntake = true, driverOI.dpad_right);
+            driverOI.onPress(() -> startSplineToScoring(BLUE_SCORING_Y_FAR), driverOI.dpad_up);
+            driverOI.onPress(() -> startSplineToScoring(BLUE_SCORING_Y_CLOSE), driverOI.dpad_down);
+        }
+        else {
+            driverOI.onPress(() -> splineToIntake = true, driverOI.dpad_left);
+            driverOI.onPress(() -> startSplineToScoring(RED_SCORING_Y_MED), driverOI.dpad_right);
+            driverOI.onPress(() -> startSplineToScoring(RED_SCORING_Y_FAR), driverOI.dpad_up);
+            driverOI.onPress(() -> startSplineToScoring(RED_SCORING_Y_CLOSE), driverOI.dpad_down);
+        }
+
+        operatorOI.onPress(() -> {
+            macros.cancel();
+            fourbar = true;
+        }, operatorOI.a);
+        // bound after x so b wins when both are held
+        operatorOI.whileHeld(() -> hand.setClawPos(CLAW_GRIP_POSITION), operatorOI.x);
+        operatorOI.whileHeld(() -> hand.setClawPos(CLAW_RELEASE_POSITION), operatorOI.b);
+        operatorOI.onPress(() -> arm.setPlaneLauncher(true), operatorOI.back);
+        operatorOI.onRelease(() -> arm.setPlaneLauncher(false), operatorOI.back);
+
+        operatorOI.onPress(() -> startMacro(ArmMacros.Macro.STOW), operatorOI.y);
+        operatorOI.onPress(() -> startMacro(ArmMacros.Macro.INTAKE_READY), operatorOI.left_bumper);
+        operatorOI.onPress(() -> startMacro(ArmMacros.Macro.SCORE_HIGH), operatorOI.dpad_up);
+        operatorOI.onPress(() -> startMacro(ArmMacros.Macro.SCORE_LOW), operatorOI.dpad_down);
+        operatorOI.onPress(() -> startMacro(alliance ? ArmMacros.Macro.SCORE_MID : ArmMacros.Macro.LAUNCH_PLANE),
+                operatorOI.dpad_left);
+        operatorOI.onPress(() -> startMacro(alliance ? ArmMacros.Macro.LAUNCH_PLANE : ArmMacros.Macro.SCORE_MID),
+                operatorOI.dpad_right);
+    }
+
+    private void startMacro(ArmMacros.Macro macro) {
+        fourbar = false;
+        macros.start(macro, System.nanoTime());
+    }
+
+    private void setHeadingIfAligning(double heading) {
+        if(autoAlign)
+            drivetrain.setDesiredHeading(heading);
+    }
+
+    private void startSplineToScoring(double scoringY) {
+        splineScoringY = scoringY;
+        splineToScoring = true;
+    }
+
     private void driverControls() {
-        intake.setPanPos(driverOI.right_trigger.get() == 0 );
+        boolean raisePan = driverOI.right_trigger.get() == 0 && !macros.isPanDownRequired();
+        intake.setPanPos(raisePan && envelope.canRaisePan(arm.getArmAngle(), arm.getWristAngle()));
 
 //        if(driverOI.left_bumper.get() )
 //            arm.setExtensionPos(1.0);
@@ -114,102 +249,67 @@ public class RobotContainer implements Constants {
 
         if(!autoAlign)
             drivetrain.setDesiredHeading(drivetrain.getFieldHeading());
-        else if(driverOI.y.wasJustPressed())
-            drivetrain.setDesiredHeading(alliance ? 90.0 : -90.0);
-        else if(driverOI.a.wasJustPressed())
-            drivetrain.setDesiredHeading(alliance ? -90.0 : 90.0);
-        else if(driverOI.b.wasJustPressed())
-            drivetrain.setDesiredHeading(alliance ? 0.0 : -180.0);
-        else if(driverOI.x.wasJustPressed())
-            drivetrain.setDesiredHeading(alliance ? -180.0 : 0.0);
-
-        fieldOriented = !driverOI.back.getToggleState();
-
-        if(alliance)
-            blueSplineControls();
-        else
-            redSplineControls();
 
-        if(power != 0.0 || driverOI.left_stick_button.get()) {
+        vision.setPixelTracking(driverOI.right_bumper.get());
+        pixelAssist = driverOI.right_bumper.get() && vision.updatePixelTarget(drivetrain.getPose());
+
+        if(power != 0.0 || driverOI.left_stick_button.get() || pixelAssist) {
             splineToScoring = false;
             splineToIntake = false;
         }
+        if(!splineToScoring)
+            backdropServo = false;
 
-        if(splineToIntake)
+        if(pixelAssist)
+            drivetrain.driveToPoint(power, vision.getPixelTargetX(), vision.getPixelTargetY());
+        else if(splineToIntake)
             drivetrain.splineToIntake(turn, autoAlign);
         else if(splineToScoring)
-            drivetrain.splineToScoring(turn, autoAlign, splineScoringY);
+            scoringControls();
         else
             drivetrain.drive(power, angle, turn, autoAlign, fieldOriented);
-    }
-
-    private void blueSplineControls() {
-        if(driverOI.dpad_left.wasJustPressed()) {
-            splineScoringY = BLUE_SCORING_Y_MED;
-            splineToScoring = true;
-        }
-        else if(driverOI.dpad_right.wasJustPressed())
-            splineToIntake = true;
 
-        else if(driverOI.dpad_up.wasJustPressed()) {
-            splineScoringY = BLUE_SCORING_Y_FAR;
-            splineToScoring = true;
-        }
-        else if(driverOI.dpad_down.wasJustPressed()) {
-            splineScoringY = BLUE_SCORING_Y_CLOSE;
-            splineToScoring = true;
-        }
+        inputLatency.update(driverOI.getPacketTimestamp(), driverOI.getPacketSeenTime(),
+                drivetrain.getCommandTime(), recorder);
     }
 
-    private void redSplineControls() {
-        if(driverOI.dpad_left.wasJustPressed())
-            splineToIntake = true;
+    private void scoringControls() {
+        // hand off to the single tag pose near the backdrop, and stay on it while it is fresh
+        backdropServo = (backdropServo
+                || drivetrain.getPose().distanceTo(SCORING_X, splineScoringY) < BACKDROP_HANDOFF_DISTANCE)
+                && vision.getBackdropPose(splineScoringY, backdropPose);
 
-        else if(driverOI.dpad_right.wasJustPressed()) {
-            splineScoringY = RED_SCORING_Y_MED;
-            splineToScoring = true;
-        }
-        else if(driverOI.dpad_up.wasJustPressed()) {
-            splineScoringY = RED_SCORING_Y_FAR;
-            splineToScoring = true;
-        }
-        else if(driverOI.dpad_down.wasJustPressed()) {
-            splineScoringY = RED_SCORING_Y_CLOSE;
-            splineToScoring = true;
-        }
+        if(backdropServo)
+            drivetrain.servoToBackdrop(backdropPose[0], backdropPose[1], backdropPose[2], splineScoringY);
+        else
+            drivetrain.splineToScoring(turn, autoAlign, splineScoringY);
     }
 
     private void operatorControls() {
-//        double armDesiredAngle;
-//        if(operatorOI.dpad_up.get())
-//            armDesiredAngle = 180.0;
-//        else if(operatorOI.dpad_down.get())
-//            armDesiredAngle = 30.0;
-//        else if(operatorOI.dpad_left.get() && alliance || operatorOI.dpad_right.get() && !alliance)
-//            armDesiredAngle = 90.0;
-//        else if(operatorOI.dpad_left.get() && !alliance || operatorOI.dpad_right.get() && alliance)
-//            armDesiredAngle = LAUNCH_ARM_ANGLE;
-//        else
-//            armDesiredAngle = arm.getArmAngle();
-//
-//        if(intake.getPosition() <= 0.59 && arm.getArmAngle() <= 40.0 &&
-//                (operatorOI.left_stick_y.get() >= 0.0 || armDesiredAngle > arm.getArmAngle()) )
-//            arm.armManualControl(0.0);
-//        else if(operatorOI.left_stick_y.get() == 0.0)
-//            arm.armGoToPos(armDesiredAngle);
-//        else
-            arm.armManualControl(operatorOI.left_stick_y.get() * ARM_MANUAL_SCALING);
+        if(operatorOI.left_stick_y.get() != 0.0 || operatorOI.right_stick_y.get() != 0.0)
+            macros.cancel();
 
-            if(operatorOI.a.wasJustPressed())
-                fourbar = true;
+        if(macros.isActive()) {
+            macros.update(System.nanoTime());
+            armHoldAngle = arm.getArmAngle();
+        }
+        else {
+            // hold the arm wherever the operator lets go of it
+            if(operatorOI.left_stick_y.get() != 0.0) {
+                arm.armManualControl(operatorOI.left_stick_y.get() * ARM_MANUAL_SCALING);
+                armHoldAngle = arm.getArmAngle();
+            }
+            else
+                arm.armGoToPos(armHoldAngle);
 
             if(operatorOI.right_stick_y.get() != 0.0)
                 fourbar = false;
 
             if(fourbar)
-                arm.setWristPos(85.0);
+                arm.wristFourbar();
             else
                 arm.wristManualControl(operatorOI.right_stick_y.get() * WRIST_COEFF);
+        }
 
 //        if(operatorOI.a.wasJustPressed())
 //            fourbar = true;
@@ -221,11 +321,6 @@ public class RobotContainer implements Constants {
 //        else if(fourbar)
 //            arm.wristFourbar();
 //
-        if(operatorOI.b.get())
-            hand.setClawPos(1.0);
-        else if(operatorOI.x.get())
-            hand.setClawPos(0.5);
-
 //        hand.setTurnyWristPos(0.5); //TODO: this functionality
 
 //        if(operatorOI.right_bumper.get())
@@ -239,14 +334,12 @@ public class RobotContainer implements Constants {
             arm.winchOpposite();
         else
             arm.stopWinch();
-
-        arm.setPlaneLauncher(operatorOI.back.get());
     }
 
     private void setLightsColor() {
         if(!fieldOriented)
             lights.setLeftColour(RevBlinkinLedDriver.BlinkinPattern.BREATH_GRAY);
-        else if(splineToScoring || splineToIntake)
+        else if(splineToScoring || splineToIntake || pixelAssist)
             lights.setLeftColour(RevBlinkinLedDriver.BlinkinPattern.STROBE_GOLD);
         else
             lights.setLeftColour(RevBlinkinLedDriver.BlinkinPattern.LAWN_GREEN);
@@ -262,17 +355,32 @@ public class RobotContainer implements Constants {
         telemetry.addData("angle", angle);
         telemetry.addData("turn power", turn);
 
-        double[] xy = drivetrain.getXY();
-        telemetry.addData("x", xy[0]);
-        telemetry.addData("y", xy[1]);
-
-        telemetry.addData("heading", drivetrain.getFieldHeading());
+        Pose2d pose = drivetrain.getPose();
+        telemetry.addData("x", pose.getX());
+        telemetry.addData("y", pose.getY());
+        telemetry.addData("heading", pose.getHeading());
+        telemetry.addData("slipping", drivetrain.getSlipDetector().isSlipping());
+        telemetry.addData("colliding", drivetrain.getSlipDetector().isColliding());
         telemetry.addData("autoAligning", autoAlign);
         telemetry.addData("field oriented", fieldOriented);
-//        telemetry.addData("arm angle", arm.getArmAngle());
-//        telemetry.addData("wrist angle", arm.getWristAngle());
+        telemetry.addData("pixel assist", pixelAssist);
+        telemetry.addData("backdrop servo", backdropServo);
+        telemetry.addData("arm angle", arm.getArmAngle());
+        telemetry.addData("wrist angle", arm.getWristAngle());
         telemetry.addData("fourbar???", fourbar);
+        telemetry.addData("macro", macros.getStatus());
+        telemetry.addData("interlock (arm, wrist)", "%b, %b", envelope.isArmBlocked(), envelope.isWristBlocked());
         telemetry.addData("April Tag Detections", vision.getNumDetections() );
+        telemetry.addData("cameras (front, back)", "%b, %b", vision.isFrontEnabled(), vision.isBackEnabled());
+        telemetry.addData("decimation (front, back)", vision.getDecimations());
+        telemetry.addData("exposure (front, back)", vision.getExposures());
+        telemetry.addData("rejected frames, all cameras (stale, blurred)", vision.getRejectedFrames());
+        telemetry.addData("front vision", vision.getHealth(true));
+        telemetry.addData("back vision", vision.getHealth(false));
+        telemetry.addData("input latency", inputLatency.getReport());
+        telemetry.addData("power", powerManager.getReport());
+        telemetry.addData("battery (filtered, compensation)", "%.2f V, %.2f",
+                battery.getFilteredVoltage(), battery.getCompensation());
 
         telemetry.update();
     }
@@ -0,0 +1,169 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+
+/**
+ * Detects wheel slip and collisions by comparing the commanded,
+ * drive encoder and dead wheel chassis velocities each loop
+ */
+public class SlipDetector implements Constants {
+    private int slipLoops;
+    private int collisionLoops;
+    private boolean slipping;
+    private boolean colliding;
+    private boolean poseUnconfirmed;
+    private int slipEvents;
+    private int collisionEvents;
+    private double encoderVx, encoderVy;
+    private double commandedVx, commandedVy;
+
+    /**
+     * Compares the three chassis velocities, call once per odometry update.
+     * Wheel velocities are in ticks/second in the order used by the Drivetrain.
+     *
+     * @param cmdBackLeft the commanded back left velocity
+     * @param cmdBackRight the commanded back right velocity
+     * @param cmdFrontLeft the commanded front left velocity
+     * @param cmdFrontRight the commanded front right velocity
+     * @param backLeft the measured back left velocity
+     * @param backRight the measured back right velocity
+     * @param frontLeft the measured front left velocity
+     * @param frontRight the measured front right velocity
+     * @param deadVx the dead wheel strafe velocity in inches/second
+     * @param deadVy the dead wheel forward velocity in inches/second
+     */
+    public void update(double cmdBackLeft, double cmdBackRight, double cmdFrontLeft, double cmdFrontRight,
+                       double backLeft, double backRight, double frontLeft, double frontRight,
+                       double deadVx, double deadVy) {
+        commandedVx = strafeVelocity(cmdBackLeft, cmdBackRight, cmdFrontLeft, cmdFrontRight);
+        commandedVy = forwardVelocity(cmdBackLeft, cmdBackRight, cmdFrontLeft, cmdFrontRight);
+        encoderVx = strafeVelocity(backLeft, backRight, frontLeft, frontRight);
+        encoderVy = forwardVelocity(backLeft, backRight, frontLeft, frontRight);
+
+        double encoderSpeed = Math.hypot(encoderVx, encoderVy);
+        double deadSpeed = Math.hypot(deadVx, deadVy);
+        double commandedSpeed = Math.hypot(commandedVx, commandedVy);
+        double groundError = Math.hypot(encoderVx - deadVx, encoderVy - deadVy);
+
+        // wheels turning faster than the robot is moving
+        boolean slipNow = groundError > SLIP_VELOCITY_THRESHOLD && encoderSpeed > deadSpeed;
+
+        // robot pushed harder than the wheels are turning, or wheels held back from the command
+        boolean collisionNow = groundError > SLIP_VELOCITY_THRESHOLD && deadSpeed > encoderSpeed
+                || commandedSpeed - encoderSpeed > COLLISION_VELOCITY_THRESHOLD;
+
+        slipLoops = slipNow ? slipLoops + 1 : 0;
+        collisionLoops = collisionNow ? collisionLoops + 1 : 0;
+
+        boolean wasSlipping = slipping;
+        boolean wasColliding = colliding;
+        slipping = slipLoops >= SLIP_CYCLES;
+        colliding = collisionLoops >= SLIP_CYCLES;
+
+        if(slipping && !wasSlipping)
+            slipEvents++;
+        if(colliding && !wasColliding)
+            collisionEvents++;
+        if(slipping || colliding)
+            poseUnconfirmed = true;
+    }
+
+    /**
+     * Marks the pose as confirmed, call when an absolute pose
+     * measurement such as vision has been applied
+     */
+    public void confirmPose() {
+        if(!slipping && !colliding)
+            poseUnconfirmed = false;
+    }
+
+    /**
+     * The drive wheel acceleration limit to use right now
+     *
+     * @return the limit as a proportion of available power per second
+     */
+    public double getAccelLimit() {
+        return slipping || colliding ? SLIP_ACCEL_LIMIT : DRIVE_ACCEL_LIMIT;
+    }
+
+    /**
+     * The proportion of a vision pose to trust right now
+     *
+     * @return the trust weight [0, 1]
+     */
+    public double getVisionTrust() {
+        return poseUnconfirmed ? SLIP_VISION_TRUST_WEIGHT : VISION_TRUST_WEIGHT;
+    }
+
+    /**
+     * Whether the wheels are currently slipping
+     *
+     * @return true if slipping
+     */
+    public boolean isSlipping() {
+        return slipping;
+    }
+
+    /**
+     * Whether the robot is currently in a collision
+     *
+     * @return true if colliding
+     */
+    public boolean isColliding() {
+        return colliding;
+    }
+
+    /**
+     * Whether odometry has slipped or been hit since
+     * the pose was last confirmed
+     *
+     * @return true if the pose is unconfirmed
+     */
+    public boolean isPoseUnconfirmed() {
+        return poseUnconfirmed;
+    }
+
+    /**
+     * The number of slip events, for telemetry
+     *
+     * @return the number of slip events this match
+     */
+    public int getSlipEvents() {
+        return slipEvents;
+    }
+
+    /**
+     * The number of collision events, for telemetry
+     *
+     * @return the number of collision events this match
+     */
+    public int getCollisionEvents() {
+        return collisionEvents;
+    }
+
+    /**
+     * The drive encoder strafe velocity from the last update
+     *
+     * @return the velocity in inches/second
+     */
+    public double getEncoderVx() {
+        return encoderVx;
+    }
+
+    /**
+     * The drive encoder forward velocity from the last update
+     *
+     * @return the velocity in inches/second
+     */
+    public double getEncoderVy() {
+        return encoderVy;
+    }
+
+    private static double forwardVelocity(double backLeft, double backRight, double frontLeft, double frontRight) {
+        return (backLeft + backRight + frontLeft + frontRight) * 0.25 * DRIVE_INCHES_PER_TICK;
+    }
+
+    private static double strafeVelocity(double backLeft, double backRight, double frontLeft, double frontRight) {
+        return (frontLeft + backRight - backLeft - frontRight) * 0.25 * DRIVE_INCHES_PER_TICK;
+    }
+}
@@ -0,0 +1,165 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.teamcode.utils.MathUtilities;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
+
+/**
+ * The April Tag pose math used by Vision, kept free of hardware
+ * so the same code runs on the robot and in log replay.
+ * Detections are accumulated with addDetection and fused with getPose.
+ * The rotation from each tag to each camera's robot heading is worked
+ * out once from the FieldLayout, so a detection costs two sin/cos pairs.
+ */
+public class TagLocalizer implements Constants {
+    private final FieldLayout layout;
+    private final double[] frontCos, frontSin;
+    private final double[] tagPose = new double[4];
+    private double sumX, sumY, sumPositionWeight, sumCos, sumSin;
+    private int count;
+
+    /**
+     * Creates a localizer for a field
+     *
+     * @param layout the field's tag layout
+     */
+    public TagLocalizer(FieldLayout layout) {
+        this.layout = layout;
+        frontCos = new double[layout.getMaxId() + 1];
+        frontSin = new double[layout.getMaxId() + 1];
+        for(int id = 0; id <= layout.getMaxId(); id++) {
+            if(!layout.hasTag(id))
+                continue;
+            // a camera squarely facing the tag points opposite the tag's face,
+            // the back camera's robot heading is another 180 from this
+            double cameraFacing = Math.toRadians(layout.getFacing(id) + 180.0);
+            frontCos[id] = Math.cos(cameraFacing);
+            frontSin[id] = Math.sin(cameraFacing);
+        }
+    }
+
+    /**
+     * The field layout the localizer uses
+     *
+     * @return the layout
+     */
+    public FieldLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Clears the detections accumulated so far, call at the start of each frame
+     */
+    public void reset() {
+        sumX = 0.0;
+        sumY = 0.0;
+        sumPositionWeight = 0.0;
+        sumCos = 0.0;
+        sumSin = 0.0;
+        count = 0;
+    }
+
+    /**
+     * Adds a single tag detection to the fused pose, ignoring tags not on the field
+     *
+     * @param id the tag id
+     * @param range the ftcPose range in inches
+     * @param bearing the ftcPose bearing in degrees
+     * @param yaw the ftcPose yaw in degrees
+     * @param isFrontCam whether the detection came from the front camera
+     */
+    public void addDetection(int id, double range, double bearing, double yaw, boolean isFrontCam) {
+        if(!localize(id, range, bearing, yaw, isFrontCam, tagPose))
+            return;
+        double positionWeight = layout.getPositionWeight(id);
+        double headingWeight = layout.getHeadingWeight(id);
+        sumX += positionWeight * tagPose[0];
+        sumY += positionWeight * tagPose[1];
+        sumPositionWeight += positionWeight;
+        sumCos += headingWeight * tagPose[2];
+        sumSin += headingWeight * tagPose[3];
+        count++;
+    }
+
+    /**
+     * The number of detections added since the last reset
+     *
+     * @return the number of detections
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Fuses the detections added since the last reset
+     *
+     * @return the fused robot pose, null if there were no detections
+     */
+    public Pose2d getPose() {
+        if(count == 0 || sumPositionWeight <= 0.0)
+            return null;
+        double heading = Math.toDegrees(Math.atan2(sumSin, sumCos));
+        return new Pose2d(sumX / sumPositionWeight, sumY / sumPositionWeight, heading);
+    }
+
+    /**
+     * Localizes the robot from a single tag detection
+     *
+     * @param id the tag id
+     * @param range the ftcPose range in inches
+     * @param bearing the ftcPose bearing in degrees
+     * @param yaw the ftcPose yaw in degrees
+     * @param isFrontCam whether the detection came from the front camera
+     * @param out filled with [x, y, cos(heading), sin(heading)]
+     *
+     * @return false if the tag is not on the field
+     */
+    public boolean localize(int id, double range, double bearing, double yaw, boolean isFrontCam, double[] out) {
+        if(!layout.hasTag(id))
+            return false;
+
+        // the camera's offset from the tag, in the tag's frame then the field's
+        double offsetAngle = Math.toRadians(bearing - yaw);
+        double tagDeltaX = range * Math.cos(offsetAngle);
+        double tagDeltaY = range * Math.sin(offsetAngle);
+        double cameraX = layout.getX(id) + layout.getRotation(id, 0, 0) * tagDeltaX
+                + layout.getRotation(id, 0, 1) * tagDeltaY;
+        double cameraY = layout.getY(id) + layout.getRotation(id, 1, 0) * tagDeltaX
+                + layout.getRotation(id, 1, 1) * tagDeltaY;
+
+        // robot heading = camera facing - yaw, expanded so no atan2 is needed
+        double yawCos = Math.cos(Math.toRadians(yaw));
+        double yawSin = Math.sin(Math.toRadians(yaw));
+        double facingCos = isFrontCam ? frontCos[id] : -frontCos[id];
+        double facingSin = isFrontCam ? frontSin[id] : -frontSin[id];
+        double headingCos = facingCos * yawCos + facingSin * yawSin;
+        double headingSin = facingSin * yawCos - facingCos * yawSin;
+
+        if(isFrontCam) {
+            out[0] = cameraX - FRONT_CAM_FORWARD_DIST * headingCos + FRONT_CAM_HORIZONTAL_DIST * headingSin;
+            out[1] = cameraY - FRONT_CAM_HORIZONTAL_DIST * headingCos - FRONT_CAM_FORWARD_DIST * headingSin;
+        }
+        else {
+            out[0] = cameraX + BACK_CAM_DIST * headingCos;
+            out[1] = cameraY + BACK_CAM_DIST * headingSin;
+        }
+        out[2] = headingCos;
+        out[3] = headingSin;
+        return true;
+    }
+
+    /**
+     * The robot heading a single detection gives
+     *
+     * @param id the tag id
+     * @param yaw the ftcPose yaw in degrees
+     * @param isFrontCam whether the detection came from the front camera
+     *
+     * @return the heading in degrees, NaN if the tag is not on the field
+     */
+    public double getRobotHeading(int id, double yaw, boolean isFrontCam) {
+        if(!layout.hasTag(id))
+            return Double.NaN;
+        return MathUtilities.addAngles(layout.getFacing(id) + (isFrontCam ? 180.0 : 0.0), -yaw);
+    }
+}
@@ -2,22 +2,25 @@ package org.firstinspires.ftc.teamcode.robot;
 
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 
 import org.firstinspires.ftc.robotcore.external.JavaUtil;
 import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.teamcode.R;
+import org.firstinspires.ftc.teamcode.logging.MatchRecorder;
 import org.firstinspires.ftc.teamcode.utils.Constants;
-import org.firstinspires.ftc.teamcode.utils.MathUtilities;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
 import org.firstinspires.ftc.vision.VisionPortal;
 import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
 import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
 
-//TODO: exposure tuning? (srcpy)
-
 /**
  * The Vision Subsystem of the Robot
  */
@@ -28,144 +31,344 @@ public class Vision implements Constants {
     int BACK_CAM_VIEW_ID;
     AprilTagProcessor frontAprilTagProcessor;
     AprilTagProcessor backAprilTagProcessor;
+    PixelProcessor pixelProcessor;
     VisionPortal frontVisionPortal;
     VisionPortal backVisionPortal;
     ArrayList<AprilTagDetection> frontDetections;
     ArrayList<AprilTagDetection> backDetections;
+    private final TagLocalizer localizer;
+    private final VisionScheduler scheduler;
+    private final DecimationController frontDecimation;
+    private final DecimationController backDecimation;
+    private final ExposureManager frontExposure;
+    private final ExposureManager backExposure;
+    private final VisionHealth frontHealth;
+    private final VisionHealth backHealth;
+    private long previousHealthRecord;
+    private final double[] backdropTagPose = new double[4];
+    private final ArrayList<AprilTagDetection> noDetections;
+    private MatchRecorder recorder;
+    private MotionHistory motionHistory;
+    private int staleFrames, blurredFrames;
+    private long lastFrontRejected, lastBackRejected;
+    private long pixelCaptureTime;
+    private double pixelTargetX, pixelTargetY;
 
     /**
-     * Instantiates the Vision Subsystem
+     * Instantiates the Vision Subsystem with the live camera preview
      *
      * @param hwMap the hardware map
      */
     public Vision(HardwareMap hwMap) {
-        List<Integer> myPortalsList;
-        myPortalsList = JavaUtil.makeIntegerList(VisionPortal.makeMultiPortalView(2, VisionPortal.MultiPortalLayout.HORIZONTAL));
-        FRONT_CAM_VIEW_ID = (Integer) JavaUtil.inListGet(myPortalsList, JavaUtil.AtMode.FROM_START, 0, false);
-        BACK_CAM_VIEW_ID = (Integer) JavaUtil.inListGet(myPortalsList, JavaUtil.AtMode.FROM_START, 1, false);
+        this(hwMap, false);
+    }
+
+    /**
+     * Instantiates the Vision Subsystem
+     *
+     * @param hwMap the hardware map
+     * @param competitionMode true to build the portals without live view,
+     *                        so no frame is rendered to the preview
+     */
+    public Vision(HardwareMap hwMap, boolean competitionMode) {
+        if(!competitionMode) {
+            List<Integer> myPortalsList;
+            myPortalsList = JavaUtil.makeIntegerList(VisionPortal.makeMultiPortalView(2, VisionPortal.MultiPortalLayout.HORIZONTAL));
+            FRONT_CAM_VIEW_ID = (Integer) JavaUtil.inListGet(myPortalsList, JavaUtil.AtMode.FROM_START, 0, false);
+            BACK_CAM_VIEW_ID = (Integer) JavaUtil.inListGet(myPortalsList, JavaUtil.AtMode.FROM_START, 1, false);
+        }
 
         AprilTagProcessor.Builder myAprilTagProcessorBuilder = new AprilTagProcessor.Builder();
         frontAprilTagProcessor = myAprilTagProcessorBuilder.setOutputUnits(DistanceUnit.INCH, AngleUnit.DEGREES).build();
         backAprilTagProcessor = myAprilTagProcessorBuilder.setOutputUnits(DistanceUnit.INCH, AngleUnit.DEGREES).build();
+        pixelProcessor = new PixelProcessor();
 
         visionPortalBuilder = new VisionPortal.Builder();
         visionPortalBuilder.setCamera(hwMap.get(WebcamName.class, "Webcam 1"));
         visionPortalBuilder.setStreamFormat(VisionPortal.StreamFormat.YUY2);
         visionPortalBuilder.addProcessor(frontAprilTagProcessor);
-        visionPortalBuilder.setLiveViewContainerId(FRONT_CAM_VIEW_ID);
+        visionPortalBuilder.addProcessor(pixelProcessor);
+        if(competitionMode)
+            visionPortalBuilder.enableLiveView(false);
+        else
+            visionPortalBuilder.setLiveViewContainerId(FRONT_CAM_VIEW_ID);
         frontVisionPortal = visionPortalBuilder.build();
+        frontVisionPortal.setProcessorEnabled(pixelProcessor, false);
 
         visionPortalBuilder = new VisionPortal.Builder();
         visionPortalBuilder.setCamera(hwMap.get(WebcamName.class, "Webcam 2"));
         visionPortalBuilder.setStreamFormat(VisionPortal.StreamFormat.YUY2);
         visionPortalBuilder.addProcessor(backAprilTagProcessor);
-        visionPortalBuilder.setLiveViewContainerId(BACK_CAM_VIEW_ID);
+        if(competitionMode)
+            visionPortalBuilder.enableLiveView(false);
+        else
+            visionPortalBuilder.setLiveViewContainerId(BACK_CAM_VIEW_ID);
         backVisionPortal = visionPortalBuilder.build();
 
         frontDetections = new ArrayList<>();
         backDetections = new ArrayList<>();
+        FieldLayout layout = loadFieldLayout(hwMap);
+        localizer = new TagLocalizer(layout);
+        scheduler = new VisionScheduler(layout);
+        frontDecimation = new DecimationController(frontVisionPortal, frontAprilTagProcessor);
+        backDecimation = new DecimationController(backVisionPortal, backAprilTagProcessor);
+        frontExposure = new ExposureManager(frontVisionPortal);
+        backExposure = new ExposureManager(backVisionPortal);
+        frontHealth = new VisionHealth();
+        backHealth = new VisionHealth();
+        noDetections = new ArrayList<>();
+    }
+
+    // the layout ships as a raw resource, FieldLayout itself stays free of Android
+    private static FieldLayout loadFieldLayout(HardwareMap hwMap) {
+        try(InputStream in = hwMap.appContext.getResources().openRawResource(R.raw.centerstage_field_layout)) {
+            return new FieldLayout(in);
+        } catch(IOException e) {
+            throw new IllegalStateException("could not read the field layout", e);
+        }
     }
 
     /**
-     * Updates the Robot Vision, call in each loop
+     * Turns each camera's April Tag processor on or off depending on
+     * whether it is expected to see a tag, call before update()
      *
-     * @return the robot pose [x, y, theta] in inches and degrees
+     * @param pose the current robot pose
+     * @param poseTrusted false if odometry may be off, which runs both cameras
      */
-    public double[] update() {
-        frontDetections = frontAprilTagProcessor.getDetections();
-        backDetections = backAprilTagProcessor.getDetections();
+    public void schedule(Pose2d pose, boolean poseTrusted) {
+        scheduler.update(pose, poseTrusted, System.nanoTime());
+        if(frontVisionPortal.getProcessorEnabled(frontAprilTagProcessor) != scheduler.isFrontEnabled())
+            frontVisionPortal.setProcessorEnabled(frontAprilTagProcessor, scheduler.isFrontEnabled());
+        if(backVisionPortal.getProcessorEnabled(backAprilTagProcessor) != scheduler.isBackEnabled())
+            backVisionPortal.setProcessorEnabled(backAprilTagProcessor, scheduler.isBackEnabled());
+    }
 
-        double[] averagedPose = new double[4];
+    /**
+     * Updates the Robot Vision, call in each loop
+     *
+     * @return the robot pose in inches and degrees, null if no trustworthy tags are seen
+     */
+    public Pose2d update() {
+        // a disabled processor keeps returning its last detections
+        frontDetections = frontVisionPortal.getProcessorEnabled(frontAprilTagProcessor)
+                ? frontAprilTagProcessor.getDetections() : noDetections;
+        backDetections = backVisionPortal.getProcessorEnabled(backAprilTagProcessor)
+                ? backAprilTagProcessor.getDetections() : noDetections;
+
+        long now = System.nanoTime();
+        frontDecimation.update(scheduler.getNearestFrontTag(), frontDetections, now);
+        backDecimation.update(scheduler.getNearestBackTag(), backDetections, now);
+        frontExposure.update(frontDetections.size(), scheduler.getNearestFrontTag() < VISION_MAX_RANGE, now);
+        backExposure.update(backDetections.size(), scheduler.getNearestBackTag() < VISION_MAX_RANGE, now);
+
+        frontHealth.setFps(frontVisionPortal.getFps());
+        backHealth.setFps(backVisionPortal.getFps());
+        if(!frontDetections.isEmpty())
+            frontHealth.addFrame(frontDetections.get(0).frameAcquisitionNanoTime, frontDetections.size(), now);
+        if(!backDetections.isEmpty())
+            backHealth.addFrame(backDetections.get(0).frameAcquisitionNanoTime, backDetections.size(), now);
+
+        localizer.reset();
+        addDetections(frontDetections, true, now);
+        addDetections(backDetections, false, now);
+        recordHealth(now);
+        return localizer.getPose();
+    }
 
-        int frontSize = frontDetections.size();
-        for(int i = 0; i < frontSize; i++) {
-            double[] pose = localize(i, true);
-            averagedPose[0] += pose[0];
-            averagedPose[1] += pose[1];
-            averagedPose[2] += pose[3] == 1 ? 5 * Math.cos( Math.toRadians(pose[2]) ) : Math.cos( Math.toRadians(pose[2]) );
-            averagedPose[3] += pose[3] == 1 ? 5 * Math.sin( Math.toRadians(pose[2]) ) : Math.sin( Math.toRadians(pose[2]) );
+    private void addDetections(ArrayList<AprilTagDetection> detections, boolean isFrontCam, long now) {
+        int size = detections.size();
+        for(int i = 0; i < size; i++) {
+            AprilTagDetection detection = detections.get(i);
+            VisionHealth health = isFrontCam ? frontHealth : backHealth;
+            if(!isTrustworthy(detection, isFrontCam, now)) {
+                health.addRejected();
+                continue;
+            }
+            health.addAccepted(now);
+            if(recorder != null)
+                recorder.recordTag(now, isFrontCam, detection);
+            localizer.addDetection(detection.id, detection.ftcPose.range, detection.ftcPose.bearing,
+                    detection.ftcPose.yaw, isFrontCam);
         }
+    }
 
-        int backSize = backDetections.size();
-        for(int i = 0; i < backSize; i++) {
-            double[] pose = localize(i, false);
-            averagedPose[0] += pose[0];
-            averagedPose[1] += pose[1];
-            averagedPose[2] += pose[3] == 1.0 ? 5 * Math.cos( Math.toRadians(pose[2]) ) : Math.cos( Math.toRadians(pose[2]) );
-            averagedPose[3] += pose[3] == 1.0 ? 5 * Math.sin( Math.toRadians(pose[2]) ) : Math.sin( Math.toRadians(pose[2]) );
+    private boolean isTrustworthy(AprilTagDetection detection, boolean isFrontCam, long now) {
+        long frameTime = detection.frameAcquisitionNanoTime;
+        boolean stale = (now - frameTime) * 1.0E-9 > VISION_MAX_FRAME_AGE;
+        double angularVelocity = motionHistory == null ? Double.NaN : motionHistory.getAngularVelocity(frameTime);
+        boolean blurred = Math.abs(angularVelocity) > VISION_MAX_ANGULAR_VELOCITY;
+        if(!stale && !blurred)
+            return true;
+
+        // count each rejected frame once, however many tags or loops it spans
+        if(frameTime != (isFrontCam ? lastFrontRejected : lastBackRejected)) {
+            if(stale)
+                staleFrames++;
+            else
+                blurredFrames++;
+            if(isFrontCam)
+                lastFrontRejected = frameTime;
+            else
+                lastBackRejected = frameTime;
         }
+        return false;
+    }
 
-        if(frontSize + backSize == 0)
-            return null;
-
-        averagedPose[0] /= (frontSize + backSize);
-        averagedPose[1] /= (frontSize + backSize);
+    // telemetry reads getHealth, the match log gets a sample every VISION_HEALTH_PERIOD
+    private void recordHealth(long now) {
+        if(recorder == null || (now - previousHealthRecord) * 1.0E-9 < VISION_HEALTH_PERIOD)
+            return;
+        previousHealthRecord = now;
+        recordHealth(frontHealth, true, now);
+        recordHealth(backHealth, false, now);
+    }
 
-        double heading = MathUtilities.addAngles(Math.toDegrees( Math.atan2(averagedPose[3],averagedPose[2]) ), 0.0);
-        return new double[]{averagedPose[0], averagedPose[1], heading};
+    private void recordHealth(VisionHealth health, boolean isFrontCam, long now) {
+        recorder.recordVisionHealth(now, isFrontCam, health.getFps(), health.getLatency(now),
+                health.getDetectionsPerSecond(now), health.getRejected(), health.getTimeSinceGoodPose(now));
     }
 
-    private double[] localize(int i, boolean isFrontCam) {
-        AprilTagDetection aprilTagDetection = isFrontCam ? frontDetections.get(i) : backDetections.get(i);
+    /**
+     * A camera's health metrics for telemetry
+     *
+     * @param isFrontCam whether to report the front camera rather than the back
+     *
+     * @return the fps, pipeline latency, detection rate, rejected tags and time since a good pose
+     */
+    public String getHealth(boolean isFrontCam) {
+        VisionHealth health = isFrontCam ? frontHealth : backHealth;
+        long now = System.nanoTime();
+        return String.format(Locale.US, "%.1f fps, %.0f ms, %.1f tags/s, %d tags rejected, %.1f s since pose",
+                health.getFps(), health.getLatency(now), health.getDetectionsPerSecond(now),
+                health.getRejected(), health.getTimeSinceGoodPose(now));
+    }
 
-        int id = aprilTagDetection.id;
-        double range = aprilTagDetection.ftcPose.range;
-        double yaw = aprilTagDetection.ftcPose.yaw;
-        double bearing = aprilTagDetection.ftcPose.bearing;
-        boolean isIntakeTag = (id >= 7 && id <= 10);
+    /**
+     * Rejects detections from frames captured while the robot turned too fast,
+     * looked up in the drivetrain's odometry history
+     *
+     * @param motionHistory the history, null to only reject stale frames
+     */
+    public void setMotionHistory(MotionHistory motionHistory) {
+        this.motionHistory = motionHistory;
+    }
 
-        double tagX = isIntakeTag ? APRIL_TAG_INTAKE_X : APRIL_TAG_SCORING_X;
-        double tagY = getTagYCoordinate(id);
+    /**
+     * The frames rejected as too old and as captured while turning too fast, for telemetry
+     *
+     * @return the rejected frame counts (stale, blurred)
+     */
+    public String getRejectedFrames() {
+        return String.format(Locale.US, "%d, %d", staleFrames, blurredFrames);
+    }
 
-        double fieldHeading = isFrontCam == isIntakeTag ? -yaw : MathUtilities.addAngles(-yaw, -180.0);
+    /**
+     * The robot pose from the backdrop tag nearest a scoring point, for the
+     * backdrop servo. Only tags seen within BACKDROP_LATENCY_BUDGET are used.
+     *
+     * @param scoringY the y of the chosen column
+     * @param out filled with the robot [x, y, heading] from the tag
+     *
+     * @return false if no fresh backdrop tag is in view
+     */
+    public boolean getBackdropPose(double scoringY, double[] out) {
+        long now = System.nanoTime();
+        AprilTagDetection best = null;
+        boolean bestIsFront = false;
+        double bestDistance = BACKDROP_MAX_TAG_DISTANCE;
+        for(int camera = 0; camera < 2; camera++) {
+            ArrayList<AprilTagDetection> detections = camera == 0 ? frontDetections : backDetections;
+            int size = detections.size();
+            for(int i = 0; i < size; i++) {
+                AprilTagDetection detection = detections.get(i);
+                if(!localizer.getLayout().hasTag(detection.id)
+                        || (now - detection.frameAcquisitionNanoTime) * 1.0E-9 > BACKDROP_LATENCY_BUDGET
+                        || !isTrustworthy(detection, camera == 0, now))
+                    continue;
+                double distance = Math.hypot(localizer.getLayout().getX(detection.id) - SCORING_X,
+                        localizer.getLayout().getY(detection.id) - scoringY);
+                if(distance < bestDistance) {
+                    best = detection;
+                    bestIsFront = camera == 0;
+                    bestDistance = distance;
+                }
+            }
+        }
+        if(best == null)
+            return false;
+
+        localizer.localize(best.id, best.ftcPose.range, best.ftcPose.bearing, best.ftcPose.yaw, bestIsFront,
+                backdropTagPose);
+        out[0] = backdropTagPose[0];
+        out[1] = backdropTagPose[1];
+        out[2] = Math.toDegrees(Math.atan2(backdropTagPose[3], backdropTagPose[2]));
+        return true;
+    }
 
-        double cameraDeltaX = range * Math.cos(Math.toRadians(bearing - yaw));
-        double cameraDeltaY = range * Math.sin(Math.toRadians(bearing - yaw));
+    /**
+     * Turns the pixel processor on the front camera on or off,
+     * it only runs while something is using it
+     *
+     * @param enabled whether to look for pixels
+     */
+    public void setPixelTracking(boolean enabled) {
+        if(frontVisionPortal.getProcessorEnabled(pixelProcessor) != enabled)
+            frontVisionPortal.setProcessorEnabled(pixelProcessor, enabled);
+    }
 
-        double cameraX = isIntakeTag ? tagX - cameraDeltaX : tagX + cameraDeltaX;
-        double cameraY = isIntakeTag ? tagY - cameraDeltaY : tagY + cameraDeltaY;
+    /**
+     * Updates the field position of the nearest pixel from the pixel processor.
+     * Each new frame is placed on the field with the current pose, so the
+     * target stays put as the robot moves between frames.
+     *
+     * @param pose the current robot pose
+     *
+     * @return true if a pixel has been seen within PIXEL_TARGET_TIMEOUT
+     */
+    public boolean updatePixelTarget(Pose2d pose) {
+        long now = System.nanoTime();
+        if(!frontVisionPortal.getProcessorEnabled(pixelProcessor))
+            return false;
+
+        long captureTime = pixelProcessor.getCaptureTimeNanos();
+        if(captureTime != pixelCaptureTime && pixelProcessor.hasPixel()
+                && pixelProcessor.getDistance() <= PIXEL_ASSIST_MAX_DISTANCE) {
+            pixelCaptureTime = captureTime;
+            double bearing = Math.toRadians(pixelProcessor.getBearing());
+            double forward = FRONT_CAM_FORWARD_DIST + pixelProcessor.getDistance() * Math.cos(bearing);
+            double left = FRONT_CAM_HORIZONTAL_DIST + pixelProcessor.getDistance() * Math.sin(bearing);
+            double heading = Math.toRadians(pose.getHeading());
+            pixelTargetX = pose.getX() + forward * Math.cos(heading) - left * Math.sin(heading);
+            pixelTargetY = pose.getY() + forward * Math.sin(heading) + left * Math.cos(heading);
+        }
+        return pixelCaptureTime != 0 && (now - pixelCaptureTime) * 1.0E-9 < PIXEL_TARGET_TIMEOUT;
+    }
 
-        double fieldHeadingInRadians = Math.toRadians(fieldHeading);
+    /**
+     * The field x coordinate of the last pixel seen
+     *
+     * @return x in inches
+     */
+    public double getPixelTargetX() {
+        return pixelTargetX;
+    }
 
-        double localizedX;
-        double localizedY;
-        if(isFrontCam) {
-            localizedX = cameraX - FRONT_CAM_FORWARD_DIST * Math.cos(fieldHeadingInRadians)
-                    + FRONT_CAM_HORIZONTAL_DIST * Math.sin(fieldHeadingInRadians);
-            localizedY = cameraY - FRONT_CAM_HORIZONTAL_DIST * Math.cos(fieldHeadingInRadians)
-                    - FRONT_CAM_FORWARD_DIST * Math.sin(fieldHeadingInRadians);
-        }
-        else {
-            localizedX = cameraX + BACK_CAM_DIST * Math.cos(fieldHeadingInRadians);
-            localizedY = cameraY + BACK_CAM_DIST * Math.sin(fieldHeadingInRadians);
-        }
+    /**
+     * The field y coordinate of the last pixel seen
+     *
+     * @return y in inches
+     */
+    public double getPixelTargetY() {
+        return pixelTargetY;
+    }
 
-        return new double[] {localizedX, localizedY, fieldHeading, id == 7 || id == 10 ? 1.0 : 0.0};
-    }
-
-    private double getTagYCoordinate(int id) {
-        switch(id) {
-            case 1:
-                return APRIL_TAG_1_Y;
-            case 2:
-                return APRIL_TAG_2_Y;
-            case 3:
-                return APRIL_TAG_3_Y;
-            case 4:
-                return APRIL_TAG_4_Y;
-            case 5:
-                return APRIL_TAG_5_Y;
-            case 6:
-                return APRIL_TAG_6_Y;
-            case 7:
-                return APRIL_TAG_7_Y;
-            case 8:
-                return APRIL_TAG_8_Y;
-            case 9:
-                return APRIL_TAG_9_Y;
-            default:
-                return APRIL_TAG_10_Y;
-        }
+    /**
+     * Starts recording every detection used to a match log
+     *
+     * @param recorder the recorder, null to stop recording
+     */
+    public void setRecorder(MatchRecorder recorder) {
+        this.recorder = recorder;
     }
 
     /**
@@ -178,20 +381,111 @@ public class Vision implements Constants {
         HashMap<Integer, Double[]> headings = new HashMap<>();
         for( int i = 0; i < frontDetections.size(); i++ ) {
             int id = frontDetections.get(i).id;
-            double yaw = frontDetections.get(i).ftcPose.yaw;
-            yaw = (id >= 7 && id <= 10) ? -yaw : MathUtilities.addAngles(-yaw, -180.0);
+            double yaw = localizer.getRobotHeading(id, frontDetections.get(i).ftcPose.yaw, true);
             headings.put( id, new Double[] { yaw, frontDetections.get(i).ftcPose.y } );
         }
 
         for( int i = 0; i < backDetections.size(); i++ ) {
             int id = backDetections.get(i).id;
-            double yaw = backDetections.get(i).ftcPose.yaw;
-            yaw = !(id >= 7 && id <= 10) ? -yaw : MathUtilities.addAngles(-yaw, -180.0);
+            double yaw = localizer.getRobotHeading(id, backDetections.get(i).ftcPose.yaw, false);
             headings.put( id, new Double[] { yaw, backDetections.get(i).ftcPose.y } );
         }
         return headings;
     }
 
+    /**
+     * Saves the next frame from each camera to the robot controller's storage,
+     * the on-demand replacement for the live preview in competition mode
+     *
+     * @param name the name of the snapshot, the camera is appended
+     */
+    public void saveSnapshot(String name) {
+        frontVisionPortal.saveNextFrameRaw(name + "-front");
+        backVisionPortal.saveNextFrameRaw(name + "-back");
+    }
+
+    /**
+     * Pauses or resumes rendering the live preview, for measuring its cost.
+     * Does nothing in competition mode.
+     *
+     * @param enabled whether to render the preview
+     */
+    public void setLiveView(boolean enabled) {
+        if(enabled) {
+            frontVisionPortal.resumeLiveView();
+            backVisionPortal.resumeLiveView();
+        }
+        else {
+            frontVisionPortal.stopLiveView();
+            backVisionPortal.stopLiveView();
+        }
+    }
+
+    /**
+     * The frame rate of each camera, for telemetry
+     *
+     * @return the front and back frames per second
+     */
+    public String getFps() {
+        return String.format(Locale.US, "%.1f, %.1f", frontVisionPortal.getFps(), backVisionPortal.getFps());
+    }
+
+    /**
+     * The smoothed frame latency of each camera, for telemetry
+     *
+     * @return the front and back latency from capture to use in milliseconds
+     */
+    public String getLatencies() {
+        return String.format(Locale.US, "%.1f, %.1f",
+                1000.0 * frontDecimation.getLatency(), 1000.0 * backDecimation.getLatency());
+    }
+
+    /**
+     * Whether the front camera's processor is running, for telemetry
+     *
+     * @return true if running
+     */
+    public boolean isFrontEnabled() {
+        return scheduler.isFrontEnabled();
+    }
+
+    /**
+     * Whether the back camera's processor is running, for telemetry
+     *
+     * @return true if running
+     */
+    public boolean isBackEnabled() {
+        return scheduler.isBackEnabled();
+    }
+
+    /**
+     * The decimation each processor is running at, for telemetry
+     *
+     * @return the front and back decimation
+     */
+    public String getDecimations() {
+        return frontDecimation.getDecimation() + ", " + backDecimation.getDecimation();
+    }
+
+    /**
+     * The locked exposure of each camera, for telemetry
+     *
+     * @return the front and back exposure in milliseconds, or tuning
+     */
+    public String getExposures() {
+        return (frontExposure.isLocked() ? frontExposure.getExposure() + " ms" : "tuning") + ", "
+                + (backExposure.isLocked() ? backExposure.getExposure() + " ms" : "tuning");
+    }
+
+    /**
+     * The detection rate against frame latency at each decimation, for the log
+     *
+     * @return the report for both cameras
+     */
+    public String getDecimationReport() {
+        return "front\n" + frontDecimation.getReport() + "back\n" + backDecimation.getReport();
+    }
+
     /**
      * Returns the number of Total April Tag Detections
      *
@@ -0,0 +1,134 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+
+/**
+ * Health metrics for one camera portal over the last VISION_HEALTH_WINDOW seconds
+ */
+public class VisionHealth implements Constants {
+    private final long[] frameTimes = new long[VISION_HEALTH_SAMPLES];
+    private final long[] latencies = new long[VISION_HEALTH_SAMPLES];
+    private final int[] detectionCounts = new int[VISION_HEALTH_SAMPLES];
+    private int newest = -1;
+    private int size;
+    private long lastFrameTime;
+    private boolean newFrame;
+    private long lastGoodTime;
+    private int rejected;
+    private float fps;
+
+    /**
+     * Updates the portal's frame rate, call in each loop
+     *
+     * @param fps the portal's getFps()
+     */
+    public void setFps(float fps) {
+        this.fps = fps;
+    }
+
+    /**
+     * Adds a processed frame, frames already added are ignored
+     *
+     * @param frameTime the frameAcquisitionNanoTime of the frame's detections
+     * @param numDetections the number of detections in the frame
+     * @param now the System.nanoTime() the detections were read
+     */
+    public void addFrame(long frameTime, int numDetections, long now) {
+        newFrame = frameTime != lastFrameTime;
+        if(!newFrame)
+            return;
+        lastFrameTime = frameTime;
+        newest = (newest + 1) % VISION_HEALTH_SAMPLES;
+        frameTimes[newest] = now;
+        latencies[newest] = now - frameTime;
+        detectionCounts[newest] = numDetections;
+        size = Math.min(size + 1, VISION_HEALTH_SAMPLES);
+    }
+
+    /**
+     * Counts a detection that was rejected. The processor returns the same
+     * detections until its next frame, so detections from a frame that was
+     * already added are ignored; call after addFrame for the same frame.
+     */
+    public void addRejected() {
+        if(newFrame)
+            rejected++;
+    }
+
+    /**
+     * Marks that a detection from this portal was used for the pose
+     *
+     * @param now the System.nanoTime() the detection was used
+     */
+    public void addAccepted(long now) {
+        lastGoodTime = now;
+    }
+
+    /**
+     * The portal's frame rate
+     *
+     * @return the frames per second
+     */
+    public float getFps() {
+        return fps;
+    }
+
+    /**
+     * The mean time from frame capture to the detections being read, over the window
+     *
+     * @param now the System.nanoTime() of the loop
+     *
+     * @return the latency in milliseconds, 0 if there were no frames with tags
+     */
+    public double getLatency(long now) {
+        long sum = 0;
+        int count = 0;
+        for(int i = 0; i < size; i++) {
+            int index = (newest - i + VISION_HEALTH_SAMPLES) % VISION_HEALTH_SAMPLES;
+            if((now - frameTimes[index]) * 1.0E-9 > VISION_HEALTH_WINDOW)
+                break;
+            sum += latencies[index];
+            count++;
+        }
+        return count == 0 ? 0.0 : sum * 1.0E-6 / count;
+    }
+
+    /**
+     * The rate of detections over the window
+     *
+     * @param now the System.nanoTime() of the loop
+     *
+     * @return the detections per second
+     */
+    public double getDetectionsPerSecond(long now) {
+        int count = 0;
+        for(int i = 0; i < size; i++) {
+            int index = (newest - i + VISION_HEALTH_SAMPLES) % VISION_HEALTH_SAMPLES;
+            if((now - frameTimes[index]) * 1.0E-9 > VISION_HEALTH_WINDOW)
+                break;
+            count += detectionCounts[index];
+        }
+        return count / VISION_HEALTH_WINDOW;
+    }
+
+    /**
+     * The number of tag detections rejected so far, each rejected frame
+     * counts once for every tag in it
+     *
+     * @return the rejected tags
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * The time since a detection from this portal was last used for the pose
+     *
+     * @param now the System.nanoTime() of the loop
+     *
+     * @return the time in seconds, infinite if none has been used
+     */
+    public double getTimeSinceGoodPose(long now) {
+        return lastGoodTime == 0 ? Double.POSITIVE_INFINITY : (now - lastGoodTime) * 1.0E-9;
+    }
+}
@@ -0,0 +1,118 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.teamcode.utils.MathUtilities;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
+
+/**
+ * Decides which cameras should run their April Tag processors, using
+ * the robot pose to predict which tags each camera can see. A camera
+ * with no tag in view is switched off, and when neither camera expects
+ * a tag both run at a low duty cycle in case the pose is wrong.
+ * Processors are toggled rather than streams stopped, since restarting
+ * a webcam stream takes far longer than a teleop can wait.
+ */
+public class VisionScheduler implements Constants {
+    private final FieldLayout layout;
+    private boolean frontEnabled;
+    private boolean backEnabled;
+    private double nearestFrontTag;
+    private double nearestBackTag;
+
+    /**
+     * Creates the scheduler with both cameras enabled
+     *
+     * @param layout the field's tag layout
+     */
+    public VisionScheduler(FieldLayout layout) {
+        this.layout = layout;
+        frontEnabled = true;
+        backEnabled = true;
+        nearestFrontTag = VISION_MAX_RANGE;
+        nearestBackTag = VISION_MAX_RANGE;
+    }
+
+    /**
+     * Decides which cameras to run, call in each loop
+     *
+     * @param pose the current robot pose
+     * @param poseTrusted false if odometry may be off, which runs both cameras
+     * @param timeNanos the System.nanoTime() of the loop
+     */
+    public void update(Pose2d pose, boolean poseTrusted, long timeNanos) {
+        nearestFrontTag = nearestVisibleTag(pose, pose.getHeading());
+        nearestBackTag = nearestVisibleTag(pose, MathUtilities.addAngles(pose.getHeading(), -180.0));
+
+        if(!poseTrusted) {
+            frontEnabled = true;
+            backEnabled = true;
+        }
+        else if(nearestFrontTag < VISION_MAX_RANGE || nearestBackTag < VISION_MAX_RANGE) {
+            frontEnabled = nearestFrontTag < VISION_MAX_RANGE;
+            backEnabled = nearestBackTag < VISION_MAX_RANGE;
+        }
+        else {
+            double phase = (timeNanos * 1.0E-9) % VISION_IDLE_PERIOD;
+            frontEnabled = phase < VISION_IDLE_ON_TIME;
+            backEnabled = frontEnabled;
+        }
+    }
+
+    /**
+     * Whether the front camera processor should run
+     *
+     * @return true to run the processor
+     */
+    public boolean isFrontEnabled() {
+        return frontEnabled;
+    }
+
+    /**
+     * Whether the back camera processor should run
+     *
+     * @return true to run the processor
+     */
+    public boolean isBackEnabled() {
+        return backEnabled;
+    }
+
+    /**
+     * The distance to the nearest tag the front camera is expected to see
+     *
+     * @return the distance in inches, VISION_MAX_RANGE if none
+     */
+    public double getNearestFrontTag() {
+        return nearestFrontTag;
+    }
+
+    /**
+     * The distance to the nearest tag the back camera is expected to see
+     *
+     * @return the distance in inches, VISION_MAX_RANGE if none
+     */
+    public double getNearestBackTag() {
+        return nearestBackTag;
+    }
+
+    private double nearestVisibleTag(Pose2d pose, double cameraHeading) {
+        double nearest = VISION_MAX_RANGE;
+        for(int id = 0; id <= layout.getMaxId(); id++) {
+            if(!layout.hasTag(id))
+                continue;
+            double deltaX = layout.getX(id) - pose.getX();
+            double deltaY = layout.getY(id) - pose.getY();
+            double distance = Math.hypot(deltaX, deltaY);
+            if(distance >= nearest)
+                continue;
+
+            // the camera must be in front of the tag's face
+            if(-deltaX * layout.getRotation(id, 0, 0) - deltaY * layout.getRotation(id, 1, 0) <= 0.0)
+                continue;
+
+            double bearing = MathUtilities.addAngles(Math.toDegrees(Math.atan2(deltaY, deltaX)), -cameraHeading);
+            if(Math.abs(bearing) <= CAMERA_HALF_FOV + VISION_FOV_MARGIN)
+                nearest = distance;
+        }
+        return nearest;
+    }
+}
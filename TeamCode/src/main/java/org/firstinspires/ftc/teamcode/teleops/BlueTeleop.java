@@ -21,6 +21,14 @@ public class BlueTeleop extends OpMode implements Constants {
         robotContainer = new RobotContainer(hardwareMap, telemetry, BLUE_ALLIANCE, -24.0, -24.0, 90.0, gamepad1, gamepad2, 0.5);
     }
 
+    /*
+     * Code to run REPEATEDLY after the driver hits INIT but before they hit PLAY
+     */
+    @Override
+    public void init_loop() {
+        robotContainer.initLoop();
+    }
+
     /*
      * Code to run REPEATEDLY after the driver hits PLAY but before they hit STOP
      */
@@ -28,4 +36,12 @@ public class BlueTeleop extends OpMode implements Constants {
     public void loop() {
         robotContainer.robot();
     }
+
+    /*
+     * Code to run ONCE after the driver hits STOP
+     */
+    @Override
+    public void stop() {
+        robotContainer.stop();
+    }
 }
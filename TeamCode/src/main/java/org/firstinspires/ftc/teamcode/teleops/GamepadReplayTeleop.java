@@ -0,0 +1,81 @@
+package org.firstinspires.ftc.teamcode.teleops;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.firstinspires.ftc.teamcode.logging.GamepadReplay;
+import org.firstinspires.ftc.teamcode.logging.MatchLog;
+import org.firstinspires.ftc.teamcode.robot.RobotContainer;
+import org.firstinspires.ftc.teamcode.utils.Constants;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Drives the robot from a recorded match log's gamepads, to reproduce
+ * what the drivers did. Set the log file, alliance, starting pose and
+ * speed through FTC Dashboard before INIT.
+ */
+@Config
+@TeleOp(name = "Gamepad Replay")
+public class GamepadReplayTeleop extends OpMode implements Constants {
+    // a log in RECORDING_DIRECTORY, recordings are named <alliance>-<millis>.bin
+    // like blue-1700000000000.bin, empty replays the newest recording
+    public static String logName = "";
+    public static boolean blueAlliance = true;
+    public static double startX = -24.0;
+    public static double startY = -24.0;
+    public static double startHeading = 90.0;
+    public static double speed = 1.0;
+    private RobotContainer robotContainer;
+    private GamepadReplay driverReplay;
+    private GamepadReplay operatorReplay;
+
+    @Override
+    public void init() {
+        // opened before RobotContainer, which may start a new recording
+        File logFile = logName.isEmpty() ? newestLog() : new File(RECORDING_DIRECTORY, logName);
+        MatchLog log;
+        try {
+            log = new MatchLog(logFile);
+        } catch(IOException e) {
+            throw new IllegalStateException("could not open " + logFile, e);
+        }
+        driverReplay = new GamepadReplay(log, 0, speed);
+        operatorReplay = new GamepadReplay(log, 1, speed);
+        robotContainer = new RobotContainer(hardwareMap, telemetry, blueAlliance, startX, startY, startHeading,
+                driverReplay.getGamepad(), operatorReplay.getGamepad(), 0.5);
+    }
+
+    private static File newestLog() {
+        File[] logs = new File(RECORDING_DIRECTORY).listFiles((dir, name) -> name.endsWith(".bin"));
+        if(logs == null || logs.length == 0)
+            throw new IllegalStateException("no recordings in " + RECORDING_DIRECTORY);
+        File newest = logs[0];
+        for(File log : logs)
+            if(log.lastModified() > newest.lastModified())
+                newest = log;
+        return newest;
+    }
+
+    @Override
+    public void init_loop() {
+        robotContainer.initLoop();
+    }
+
+    @Override
+    public void loop() {
+        long now = System.nanoTime();
+        driverReplay.update(now);
+        operatorReplay.update(now);
+        if(driverReplay.isFinished() && operatorReplay.isFinished())
+            requestOpModeStop();
+        robotContainer.robot();
+    }
+
+    @Override
+    public void stop() {
+        robotContainer.stop();
+    }
+}
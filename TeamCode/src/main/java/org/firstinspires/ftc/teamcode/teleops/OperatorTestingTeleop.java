@@ -11,8 +11,6 @@ import org.firstinspires.ftc.teamcode.robot.Hand;
 import org.firstinspires.ftc.teamcode.robot.Intake;
 import org.firstinspires.ftc.teamcode.utils.Constants;
 
-//TODO: add back pot functions
-
 /**
  * A teleop for testing all Operator functionalities using
  * FTC Dashboard
@@ -47,14 +45,16 @@ public class OperatorTestingTeleop extends OpMode implements Constants
 
     @Override
     public void loop() {
-//        if(fourbar)
-//            arm.wristFourbar();
-//        else
+        arm.update();
+
+        if(fourbar)
+            arm.wristFourbar();
+        else
             arm.setWristPos(desiredWristAngle);
 
-//        if(ARM_PID)
-//            arm.armGoToPos(desiredArmAngle);
-//        else
+        if(ARM_PID)
+            arm.armGoToPos(desiredArmAngle);
+        else
             arm.armManualControl(shoulderPower);
 
         if(climb)
@@ -72,9 +72,10 @@ public class OperatorTestingTeleop extends OpMode implements Constants
         hand.setClawPos(clawPos);
         hand.setTurnyWristPos(turnyWristPos);
 
-//        telemetry.addData("arm angle", arm.getArmAngle() );
+        telemetry.addData("arm angle", arm.getArmAngle() );
         telemetry.addData("desired arm angle", desiredArmAngle);
-//        telemetry.addData("pot", arm.getPot());
+        telemetry.addData("arm velocity", arm.getArmVelocity());
+        telemetry.addData("pot", arm.getPot());
         telemetry.addData("wrist pos", arm.getWristAngle());
         telemetry.addData("desired wrist pos", desiredWristAngle);
         telemetry.update();
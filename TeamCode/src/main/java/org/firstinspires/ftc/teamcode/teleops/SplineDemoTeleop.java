@@ -6,6 +6,7 @@ import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import org.firstinspires.ftc.teamcode.robot.Drivetrain;
 import org.firstinspires.ftc.teamcode.utils.Constants;
 import org.firstinspires.ftc.teamcode.utils.MathUtilities;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
 
 /**
  * Spline Demo Teleop
@@ -29,10 +30,9 @@ public class SplineDemoTeleop extends OpMode implements Constants {
     public void loop() {
         drivetrain.updateWithOdometry();
 
-        double[] xy = drivetrain.getXY();
+        Pose2d pose = drivetrain.getPose();
 
-        double distance = Math.sqrt(Math.pow(100 - xy[0], 2) +
-                Math.pow(100 - xy[1], 2) );
+        double distance = pose.distanceTo(100, 100);
         double power = distance >= SPLINE_ERROR ? MathUtilities.clip(SPLINE_P * distance
                 , -SPLINE_GOVERNOR, SPLINE_GOVERNOR) : 0.0;
 
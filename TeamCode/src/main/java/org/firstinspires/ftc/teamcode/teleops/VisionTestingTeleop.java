@@ -3,19 +3,40 @@ package org.firstinspires.ftc.teamcode.teleops;
 import com.acmerobotics.dashboard.config.Config;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.util.RobotLog;
 
+import org.firstinspires.ftc.teamcode.logging.MatchRecorder;
 import org.firstinspires.ftc.teamcode.robot.Vision;
 import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.firstinspires.ftc.teamcode.utils.Pose2d;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
 import java.util.HashMap;
 
 /**
- * A teleop for testing robot Vision functionalities and accuracy
+ * A teleop for testing robot Vision functionalities and accuracy.
+ * Press A to toggle the live preview and compare frame rate, latency and
+ * robot controller CPU use with and without it.
+ * Press B to start or stop capturing detections for the VisionBenchmark,
+ * with the robot's known pose entered through FTC Dashboard as ground truth.
  */
+@Config
 @TeleOp(name="Vision Testing")
 public class VisionTestingTeleop extends OpMode implements Constants
 {
+    public static double truthX;
+    public static double truthY;
+    public static double truthHeading;
     private Vision vision;
+    private MatchRecorder recorder;
+    private boolean liveView = true;
+    private boolean previousA;
+    private boolean previousB;
+    private long previousCpuTicks;
+    private long previousCpuTime;
+    private double cpuUsage;
 
     @Override
     public void init() {
@@ -24,13 +45,32 @@ public class VisionTestingTeleop extends OpMode implements Constants
 
     @Override
     public void loop() {
-        double[] pose = vision.update();
+        if(gamepad1.a && !previousA) {
+            liveView = !liveView;
+            vision.setLiveView(liveView);
+        }
+        previousA = gamepad1.a;
+
+        if(gamepad1.b && !previousB)
+            toggleCapture();
+        previousB = gamepad1.b;
+        if(recorder != null)
+            recorder.recordGroundTruth(System.nanoTime(), truthX, truthY, truthHeading);
+
+        updateCpuUsage();
+
+        Pose2d pose = vision.update();
+        telemetry.addData("live view (A)", liveView);
+        telemetry.addData("capturing (B)", recorder != null ? recorder.getNumRecords() + " records" : "off");
+        telemetry.addData("fps (front, back)", vision.getFps());
+        telemetry.addData("latency ms (front, back)", vision.getLatencies());
+        telemetry.addData("cpu %", cpuUsage);
         telemetry.addData("front detections", vision.getNumFrontDetections());
         telemetry.addData("back detections", vision.getNumBackDetections());
         telemetry.addData("total detections", vision.getNumDetections());
-        telemetry.addData("X", pose != null ? pose[0] : "null");
-        telemetry.addData("Y", pose != null ? pose[1] : "null");
-        telemetry.addData("Theta", pose != null ? pose[2] : "null");
+        telemetry.addData("X", pose != null ? pose.getX() : "null");
+        telemetry.addData("Y", pose != null ? pose.getY() : "null");
+        telemetry.addData("Theta", pose != null ? pose.getHeading() : "null");
 
         HashMap<Integer, Double[]> headings = vision.getHeadings();
         telemetry.addData("ID: 1", headings.containsKey(1) ? headings.get(1) : "null");
@@ -45,4 +85,48 @@ public class VisionTestingTeleop extends OpMode implements Constants
         telemetry.addData("ID: 10", headings.containsKey(10) ? headings.get(10) : "null");
         telemetry.update();
     }
+
+    @Override
+    public void stop() {
+        if(recorder != null)
+            toggleCapture();
+    }
+
+    private void toggleCapture() {
+        if(recorder != null) {
+            vision.setRecorder(null);
+            recorder.close();
+            recorder = null;
+            return;
+        }
+
+        try {
+            recorder = new MatchRecorder("vision");
+            vision.setRecorder(recorder);
+        } catch(IOException e) {
+            RobotLog.ee("VisionTestingTeleop", e, "could not start capturing");
+        }
+    }
+
+    /**
+     * Measures the robot controller app's CPU use from /proc once a second,
+     * as a percentage of one core
+     */
+    private void updateCpuUsage() {
+        long now = System.nanoTime();
+        if(now - previousCpuTime < 1000000000L)
+            return;
+
+        try(BufferedReader reader = new BufferedReader(new FileReader("/proc/self/stat"))) {
+            // utime and stime are the 14th and 15th fields, in 10 ms clock ticks
+            String[] fields = reader.readLine().split(" ");
+            long ticks = Long.parseLong(fields[13]) + Long.parseLong(fields[14]);
+            if(previousCpuTime != 0)
+                cpuUsage = 100.0 * (ticks - previousCpuTicks) * 1.0E7 / (now - previousCpuTime);
+            previousCpuTicks = ticks;
+            previousCpuTime = now;
+        } catch(IOException | RuntimeException e) {
+            cpuUsage = -1.0;
+        }
+    }
 }
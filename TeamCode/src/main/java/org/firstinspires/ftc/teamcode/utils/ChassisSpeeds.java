@@ -0,0 +1,72 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+/**
+ * An immutable robot-relative chassis velocity.
+ * x is to the robot's right, y is forward.
+ */
+public final class ChassisSpeeds {
+    private final double vx;
+    private final double vy;
+    private final double omega;
+
+    /**
+     * Creates a ChassisSpeeds
+     *
+     * @param vx the strafe velocity in inches/second, right is positive
+     * @param vy the forward velocity in inches/second
+     * @param omega the turning velocity in degrees/second, counterclockwise is positive
+     */
+    public ChassisSpeeds(double vx, double vy, double omega) {
+        this.vx = vx;
+        this.vy = vy;
+        this.omega = omega;
+    }
+
+    /**
+     * Converts a Twist2d measured over a time step into a velocity
+     *
+     * @param twist the motion over the time step
+     * @param dt the length of the time step in seconds
+     *
+     * @return the chassis velocity
+     */
+    public static ChassisSpeeds fromTwist(Twist2d twist, double dt) {
+        return new ChassisSpeeds(twist.getDx() / dt, twist.getDy() / dt, twist.getDHeading() / dt);
+    }
+
+    /**
+     * The strafe velocity
+     *
+     * @return the velocity in inches/second, right is positive
+     */
+    public double getVx() {
+        return vx;
+    }
+
+    /**
+     * The forward velocity
+     *
+     * @return the velocity in inches/second
+     */
+    public double getVy() {
+        return vy;
+    }
+
+    /**
+     * The turning velocity
+     *
+     * @return the velocity in degrees/second
+     */
+    public double getOmega() {
+        return omega;
+    }
+
+    /**
+     * Return the speeds, for telemetry
+     *
+     * @return the speeds as a String
+     */
+    public String toString() {
+        return String.format("(%.2f, %.2f, %.2f)", vx, vy, omega);
+    }
+}
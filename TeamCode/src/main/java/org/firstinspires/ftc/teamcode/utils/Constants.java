@@ -16,8 +16,29 @@ public interface Constants {
     /** The Default Controller Axis DeadBand */
     double DEFAULT_DEADBAND = 0.005;
 
-    /** The number of code loops to wait for axis values */
-    int LOOPS_TO_WAIT = 5;
+    /** The radial deadband of the joysticks */
+    double STICK_DEADBAND = 0.05;
+
+    /** The number of steps in a response curve's table */
+    int CURVE_TABLE_SIZE = 32;
+
+    /** The expo of the driver's translation stick, softer near zero for fine positioning */
+    double DRIVE_EXPO = 0.4;
+
+    /** The expo of the driver's turning stick */
+    double TURN_EXPO = 0.3;
+
+    /** The largest input latency in milliseconds the latency histograms hold, longer ones go in the last bin */
+    int LATENCY_HISTOGRAM_MS = 100;
+
+    /** How long in seconds an axis must be zero before it counts as released */
+    double AXIS_ZERO_TIME = 0.1;
+
+    /** How long in seconds a button ignores changes after its last one */
+    double BUTTON_DEBOUNCE_TIME = 0.02;
+
+    /** The longest time in seconds between two presses of a double tap */
+    double BUTTON_DOUBLE_TAP_TIME = 0.3;
 
 
     /** The virtual low gear for the robot driving */
@@ -121,6 +142,24 @@ public interface Constants {
     /** The Max Speed for splining */
     double SPLINE_GOVERNOR = 0.6;
 
+    /** How close in inches to the scoring point the spline hands off to the backdrop servo */
+    double BACKDROP_HANDOFF_DISTANCE = 12.0;
+
+    /** How far in inches a tag can be from the scoring point to servo on it */
+    double BACKDROP_MAX_TAG_DISTANCE = 24.0;
+
+    /** The oldest in seconds a tag's frame can be to servo on it */
+    double BACKDROP_LATENCY_BUDGET = 0.1;
+
+    /** The Proportional Constant for the backdrop servo */
+    double BACKDROP_P = 0.04;
+
+    /** The allowed error for the backdrop servo in inches */
+    double BACKDROP_ERROR = 0.5;
+
+    /** The Max Speed for the backdrop servo */
+    double BACKDROP_GOVERNOR = 0.3;
+
     /** The X value of the Scoring Points */
     double SCORING_X = -44.0;
 
@@ -163,6 +202,36 @@ public interface Constants {
     /** The Y value of the Red Intake Point */
     double RED_INTAKE_Y = -60.0;
 
+    /** Ticks per revolution of a drive motor (goBILDA 312 rpm) */
+    double DRIVE_TICKS_PER_REV = 537.7;
+
+    /** Diameter of the mecanum drive wheels in inches */
+    double DRIVE_WHEEL_DIAMETER = 96.0 / 25.4;
+
+    /** Inches travelled per encoder tick of a drive motor */
+    double DRIVE_INCHES_PER_TICK = DRIVE_WHEEL_DIAMETER * Math.PI / DRIVE_TICKS_PER_REV;
+
+    /** The max change in drive wheel power per second, as a proportion of available power */
+    double DRIVE_ACCEL_LIMIT = 8.0;
+
+    /** The max change in drive wheel power per second while slipping or after a collision */
+    double SLIP_ACCEL_LIMIT = 2.0;
+
+    /** The velocity mismatch in inches/second between drive encoders and dead wheels that counts as slip */
+    double SLIP_VELOCITY_THRESHOLD = 12.0;
+
+    /** The velocity mismatch in inches/second between commanded and drive encoder speeds that counts as a collision */
+    double COLLISION_VELOCITY_THRESHOLD = 24.0;
+
+    /** The number of consecutive loops a mismatch must last before it is flagged */
+    int SLIP_CYCLES = 3;
+
+    /** The proportion of a vision pose to trust when odometry is healthy */
+    double VISION_TRUST_WEIGHT = 0.5;
+
+    /** The proportion of a vision pose to trust after slip or a collision */
+    double SLIP_VISION_TRUST_WEIGHT = 1.0;
+
 
 
     /** Servo position for intake actuators when up */
@@ -171,6 +240,38 @@ public interface Constants {
     /** Servo position for intake actuators when touching floor */
     double INTAKE_DOWN_POSITION = 0.75;
 
+    /** The time for the intake pan to travel between up and down */
+    double INTAKE_TRAVEL_TIME = 0.5;
+
+
+
+    /** The highest arm angle that stays tucked under the intake pan when it is up */
+    double INTERLOCK_PAN_ARM_LOW = 10.0;
+
+    /** The lowest arm angle that clears the intake pan when it is up */
+    double INTERLOCK_PAN_ARM_ANGLE = 40.0;
+
+    /** Below this arm angle the hand is near the floor and the intake */
+    double INTERLOCK_LOW_ARM_ANGLE = 30.0;
+
+    /** The lowest wrist angle allowed while the arm is below INTERLOCK_LOW_ARM_ANGLE */
+    double INTERLOCK_LOW_WRIST_ANGLE = 45.0;
+
+    /** The lowest arm angle in the interlock grid */
+    double INTERLOCK_ARM_MIN = -20.0;
+
+    /** The highest arm angle in the interlock grid */
+    double INTERLOCK_ARM_MAX = 200.0;
+
+    /** The size of an interlock grid cell in degrees */
+    double INTERLOCK_CELL = 2.5;
+
+    /** How far ahead of a joint the interlock looks in degrees, on top of its stopping distance */
+    double INTERLOCK_MARGIN = 5.0;
+
+    /** How far ahead in time the interlock looks along the arm's velocity */
+    double INTERLOCK_LOOKAHEAD_TIME = 0.1;
+
 
 
     /** Max power allowed for the shoulder motors */
@@ -182,11 +283,32 @@ public interface Constants {
     /** The p constant for arm goToPos */
     double SHOULDER_P = 0.007;
 
-    /** The f constant for arm goToPos */
-    double SHOULDER_F = 0.0005;
+    /** The gravity feedforward for arm goToPos, the power that holds the arm horizontal, untuned */
+    double SHOULDER_F = 0.09;
+
+    /** The d constant for arm goToPos, in power per degree per second, untuned */
+    double SHOULDER_D = 0.0004;
+
+    /** The arm angle where the arm is horizontal and gravity pulls hardest, unmeasured */
+    double ARM_HORIZONTAL_ANGLE = 0.0;
 
-    /** The d constant for arm goToPos */
-    double SHOULDER_D = 0.0001;
+    /** The number of loops of pot reads the median is taken over */
+    int POT_SAMPLES = 3;
+
+    /** The weight of each new pot reading in its exponential moving average */
+    double POT_SMOOTHING = 0.5;
+
+    /** The velocity feedforward for the arm, in power per degree per second */
+    double SHOULDER_V = 0.004;
+
+    /** The acceleration feedforward for the arm, in power per degree per second squared */
+    double SHOULDER_A = 0.0003;
+
+    /** The arm's profiled speed limit in degrees per second */
+    double ARM_MAX_VELOCITY = 150.0;
+
+    /** The arm's profiled acceleration limit in degrees per second squared */
+    double ARM_MAX_ACCELERATION = 300.0;
 
     /** Pot Conversion last term */
     double POT_COEFF_A = 5.514E5;
@@ -212,6 +334,30 @@ public interface Constants {
     /** Wrist Position Proportional Coefficient */
     double WRIST_P = 0.023;
 
+    /** The gravity feedforward for the wrist, the power that holds the hand horizontal */
+    double WRIST_F = 0.05;
+
+    /** The velocity feedforward for the wrist, in power per degree per second */
+    double WRIST_V = 0.002;
+
+    /** The acceleration feedforward for the wrist, in power per degree per second squared */
+    double WRIST_A = 0.0001;
+
+    /** The sum of the arm and wrist angles where the hand is horizontal */
+    double WRIST_HORIZONTAL_ANGLE = 95.0;
+
+    /** The sum of the arm and wrist angles the virtual fourbar holds, 10 degrees below horizontal */
+    double FOURBAR_ANGLE = 85.0;
+
+    /** The furthest the wrist may turn either way in degrees */
+    double WRIST_LIMIT = 110.0;
+
+    /** The wrist's profiled speed limit in degrees per second */
+    double WRIST_MAX_VELOCITY = 240.0;
+
+    /** The wrist's profiled acceleration limit in degrees per second squared */
+    double WRIST_MAX_ACCELERATION = 600.0;
+
     /** Wrist encoder ticks per full revolution */
     int WRIST_TICKS_PER_REV = 288;
 
@@ -232,43 +378,233 @@ public interface Constants {
     /** The open position for the right claw */
     double RIGHT_CLAW_OPEN = 0.223;
 
+    /** The claw position that grips a pixel */
+    double CLAW_GRIP_POSITION = 0.5;
+
+    /** The claw position that releases a pixel */
+    double CLAW_RELEASE_POSITION = 1.0;
+
+
+
+    /** The arm angle when stowed */
+    double ARM_STOW_ANGLE = 5.0;
+
+    /** The arm angle for scoring low on the backdrop */
+    double ARM_SCORE_LOW_ANGLE = 165.0;
+
+    /** The arm angle for scoring in the middle of the backdrop */
+    double ARM_SCORE_MID_ANGLE = 150.0;
+
+    /** The arm angle for scoring high on the backdrop */
+    double ARM_SCORE_HIGH_ANGLE = 135.0;
+
+    /** The time for a servo to finish moving in a macro */
+    double MACRO_SERVO_TIME = 0.25;
+
+    /** The wrist angle when stowed */
+    double WRIST_STOW_ANGLE = 90.0;
+
+    /** The wrist angle for picking pixels off the intake */
+    double WRIST_INTAKE_ANGLE = 85.0;
+
+    /** The wrist angle for scoring low on the backdrop */
+    double WRIST_SCORE_LOW_ANGLE = -80.0;
+
+    /** The wrist angle for scoring in the middle of the backdrop */
+    double WRIST_SCORE_MID_ANGLE = -65.0;
+
+    /** The wrist angle for scoring high on the backdrop */
+    double WRIST_SCORE_HIGH_ANGLE = -50.0;
+
+    /** How close the arm must be to its target in degrees for a macro step to finish */
+    double MACRO_ARM_TOLERANCE = 5.0;
+
+    /** How close the wrist must be to its target in degrees for a macro step to finish */
+    double MACRO_WRIST_TOLERANCE = 5.0;
+
+    /** The time a macro step waits for the arm and wrist to settle after their move before moving on anyway */
+    double MACRO_STEP_TIMEOUT = 1.0;
+
+
+
+    /** The time between battery voltage readings */
+    double BATTERY_SAMPLE_PERIOD = 0.1;
+
+    /** The weight of each voltage reading in the slow filter used for compensation */
+    double BATTERY_SMOOTHING = 0.05;
+
+    /** The battery voltage the motor powers and gains were tuned at */
+    double NOMINAL_VOLTAGE = 12.0;
+
+    /** The smallest voltage compensation factor, for a freshly charged battery */
+    double MIN_VOLTAGE_COMPENSATION = 0.8;
+
+    /** The largest voltage compensation factor, so a bad reading cannot double every output */
+    double MAX_VOLTAGE_COMPENSATION = 1.3;
+
+    /** How much the compensation must change before the drive's velocity PIDF is reprogrammed */
+    double VOLTAGE_COMPENSATION_STEP = 0.02;
+
+    /** The time between power manager samples, each reads one subsystem's current */
+    double POWER_SAMPLE_PERIOD = 0.033;
+
+    /** Below this battery voltage output is shed */
+    double POWER_TARGET_VOLTAGE = 9.5;
+
+    /** Below this battery voltage only the top priority subsystem keeps full output */
+    double POWER_BROWNOUT_VOLTAGE = 8.0;
+
+    /** The total current budget of the drive, arm and winch in amps, the main fuse is 20 A */
+    double POWER_MAX_CURRENT = 20.0;
+
+    /** How fast output is shed in subsystems per second */
+    double POWER_CUT_RATE = 4.0;
+
+    /** How fast shed output is given back in subsystems per second */
+    double POWER_RECOVERY_RATE = 1.0;
+
+    /** The lowest limit a subsystem is cut to, so it can still be controlled */
+    double POWER_MIN_LIMIT = 0.25;
+
+
+
+    /** Half the horizontal field of view of the webcams in degrees */
+    double CAMERA_HALF_FOV = 35.0;
+
+    /** Extra degrees added to the field of view to allow for pose error when scheduling cameras */
+    double VISION_FOV_MARGIN = 10.0;
+
+    /** The farthest a tag can be detected from in inches */
+    double VISION_MAX_RANGE = 120.0;
+
+    /** The period of the low duty cycle used when no tag is expected in view, in seconds */
+    double VISION_IDLE_PERIOD = 0.5;
+
+    /** How long the processors stay on in each low duty cycle period, in seconds */
+    double VISION_IDLE_ON_TIME = 0.1;
+
+    /** The lowest April Tag decimation, full resolution for far tags that are expected in view */
+    int MIN_DECIMATION = 1;
+
+    /** The highest April Tag decimation, used for close tags and when no tag is expected */
+    int MAX_DECIMATION = 3;
+
+    /** Tags closer than this in inches are detected with MAX_DECIMATION */
+    double DECIMATION_CLOSE_RANGE = 24.0;
+
+    /** Tags closer than this in inches are detected with one step less than MAX_DECIMATION */
+    double DECIMATION_MID_RANGE = 48.0;
+
+    /** The target frame latency from capture to use in seconds */
+    double VISION_LATENCY_TARGET = 0.06;
+
+    /** The smoothing of the measured frame latency, the weight given to each new frame */
+    double VISION_LATENCY_SMOOTHING = 0.2;
+
+    /** The shortest time in seconds between latency driven decimation steps */
+    double DECIMATION_SETTLE_TIME = 0.5;
+
+    /** The longest exposure tried by the exposure sweep in milliseconds */
+    int EXPOSURE_SWEEP_MAX = 15;
+
+    /** The step between exposures tried by the exposure sweep in milliseconds */
+    int EXPOSURE_SWEEP_STEP = 2;
+
+    /** The exposure used if no tags were seen during the sweep in milliseconds */
+    int EXPOSURE_DEFAULT = 6;
+
+    /** The time to let the camera settle after an exposure change in seconds */
+    double EXPOSURE_SETTLE_TIME = 0.1;
+
+    /** The time spent counting detections at each exposure in seconds */
+    double EXPOSURE_SAMPLE_TIME = 0.25;
+
+    /** A sweep picks the shortest exposure scoring at least this proportion of the best */
+    double EXPOSURE_ACCEPT_FRACTION = 0.8;
+
+    /** A re-tune starts when the detection rate falls below this proportion of the locked rate */
+    double EXPOSURE_RETUNE_FRACTION = 0.5;
+
+    /** How long the detection rate must stay low before a re-tune, in seconds */
+    double EXPOSURE_RETUNE_TIME = 2.0;
+
+    /** The smoothing of the locked exposure's detection rate, the weight given to each loop */
+    double EXPOSURE_RATE_SMOOTHING = 0.2;
+
+    /** The number of odometry samples kept for looking up past motion */
+    int MOTION_HISTORY_SIZE = 64;
+
+    /** The oldest a camera frame can be for its detections to be used, in seconds */
+    double VISION_MAX_FRAME_AGE = 0.15;
+
+    /** The fastest the robot can be turning when a frame is captured for it to be used, in degrees per second */
+    double VISION_MAX_ANGULAR_VELOCITY = 90.0;
+
+    /** The number of frames each camera's health metrics can hold */
+    int VISION_HEALTH_SAMPLES = 128;
+
+    /** The window in seconds the vision health rates are taken over */
+    double VISION_HEALTH_WINDOW = 1.0;
+
+    /** How often in seconds vision health is written to the match log */
+    double VISION_HEALTH_PERIOD = 0.5;
+
+    /** How much the pixel processor shrinks each frame before thresholding */
+    int PIXEL_DOWNSCALE = 4;
+
+    /** The fraction of the frame from the top that the pixel processor ignores, above the floor */
+    double PIXEL_ROI_TOP = 0.4;
+
+    /** The matching pixels a downscaled row needs to count as part of a pixel */
+    int PIXEL_MIN_ROW_COUNT = 3;
+
+    /** The downscaled rows above the nearest pixel row averaged for its bearing */
+    int PIXEL_BAND_ROWS = 4;
+
+    /** The height in inches of the front cam's lens above the floor */
+    double FRONT_CAM_HEIGHT = 8.0;
+
+    /** How far the front cam is tilted down in degrees */
+    double FRONT_CAM_TILT = 20.0;
 
+    /** How long a pixel target is followed after it was last seen, in seconds */
+    double PIXEL_TARGET_TIMEOUT = 0.3;
 
-    /** X Coordinate of Intake Side April Tags */
-    double APRIL_TAG_INTAKE_X = 72;
+    /** The farthest pixel in inches the drive assist will steer to */
+    double PIXEL_ASSIST_MAX_DISTANCE = 48.0;
 
-    /** Y Coordinate of Tag #7 */
-    double APRIL_TAG_7_Y = 42;
+    /** How much the prop detector shrinks each frame before summing chroma */
+    int PROP_DOWNSCALE = 4;
 
-    /** Y Coordinate of Tag #8 */
-    double APRIL_TAG_8_Y = 36;
+    /** The top of the prop detector's regions as a fraction of the frame height */
+    double PROP_ROI_TOP = 0.35;
 
-    /** Y Coordinate of Tag #9 */
-    double APRIL_TAG_9_Y = -36;
+    /** The bottom of the prop detector's regions as a fraction of the frame height */
+    double PROP_ROI_BOTTOM = 0.85;
 
-    /** Y Coordinate of Tag #10 */
-    double APRIL_TAG_10_Y = -42;
+    /** The number of recent frames that vote on the prop's spike mark */
+    int PROP_VOTE_FRAMES = 15;
 
-    /** X Coordinate of Scoring Side April Tags */
-    double APRIL_TAG_SCORING_X = -61.5;
+    /** How much more chroma the best region needs than the next for a frame to vote */
+    double PROP_MIN_CONTRAST = 8.0;
 
-    /** Y Coordinate of Tag #1 */
-    double APRIL_TAG_1_Y = -42;
+    /** The sideways distance in inches from the center spike mark to the others */
+    double SPIKE_MARK_OFFSET = 11.5;
 
-    /** Y Coordinate of Tag #2 */
-    double APRIL_TAG_2_Y = -36;
+    /** Whether teleops build Vision without the live camera preview */
+    boolean COMPETITION_MODE = true;
 
-    /** Y Coordinate of Tag #3 */
-    double APRIL_TAG_3_Y = -30;
+    /** Whether teleops record a match log, each one takes RECORDER_CAPACITY_BYTES of storage */
+    boolean RECORD_MATCHES = false;
 
-    /** Y Coordinate of Tag #4 */
-    double APRIL_TAG_4_Y = 30;
+    /** The directory match logs are recorded to */
+    String RECORDING_DIRECTORY = "/sdcard/FIRST/matchlogs";
 
-    /** Y Coordinate of Tag #5 */
-    double APRIL_TAG_5_Y = 36;
+    /** The size in bytes of the memory-mapped match log, about 10 minutes of records */
+    int RECORDER_CAPACITY_BYTES = 32 * 1024 * 1024;
 
-    /** Y Coordinate of Tag #6 */
-    double APRIL_TAG_6_Y = 42;
+    /** The most match logs kept in RECORDING_DIRECTORY, the oldest are deleted first */
+    int RECORDING_MAX_FILES = 10;
 
     /** The distance in inches from the back cam to the robot's center */
     double BACK_CAM_DIST = 6.0;
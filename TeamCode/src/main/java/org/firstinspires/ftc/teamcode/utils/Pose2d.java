@@ -0,0 +1,109 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+/**
+ * An immutable robot pose on the field coordinate system.
+ * Because a Pose2d never changes once built, it can be handed
+ * between threads without any x, y or heading being torn.
+ */
+public final class Pose2d {
+    private final double x;
+    private final double y;
+    private final double heading;
+
+    /**
+     * Creates a Pose2d
+     *
+     * @param x the x coordinate in inches
+     * @param y the y coordinate in inches
+     * @param heading the heading in degrees, wrapped to [-180, 180)
+     */
+    public Pose2d(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = MathUtilities.addAngles(heading, 0.0);
+    }
+
+    /**
+     * The x coordinate
+     *
+     * @return x in inches
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * The y coordinate
+     *
+     * @return y in inches
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * The field heading
+     *
+     * @return the heading in degrees [-180, 180)
+     */
+    public double getHeading() {
+        return heading;
+    }
+
+    /**
+     * The straight line distance from this pose to a point
+     *
+     * @param px the point x coordinate
+     * @param py the point y coordinate
+     *
+     * @return the distance in inches
+     */
+    public double distanceTo(double px, double py) {
+        return Math.hypot(px - x, py - y);
+    }
+
+    /**
+     * Applies a robot-relative Twist2d to this pose. The heading
+     * change is applied first and the translation is rotated by the
+     * new heading, the same way the dead wheel odometry always has.
+     *
+     * @param twist the robot-relative motion
+     *
+     * @return the resulting pose
+     */
+    public Pose2d exp(Twist2d twist) {
+        double newHeading = MathUtilities.addAngles(heading, twist.getDHeading());
+        double inRadians = Math.toRadians(newHeading);
+        double cos = Math.cos(inRadians);
+        double sin = Math.sin(inRadians);
+        return new Pose2d(
+                x + twist.getDx() * sin + twist.getDy() * cos,
+                y - twist.getDx() * cos + twist.getDy() * sin,
+                newHeading);
+    }
+
+    /**
+     * Moves part of the way from this pose towards another,
+     * taking the short way around for the heading
+     *
+     * @param other the pose to move towards
+     * @param t the proportion of the way to move [0, 1]
+     *
+     * @return the blended pose
+     */
+    public Pose2d interpolate(Pose2d other, double t) {
+        return new Pose2d(
+                x + t * (other.x - x),
+                y + t * (other.y - y),
+                MathUtilities.addAngles(heading, t * MathUtilities.addAngles(other.heading, -heading)));
+    }
+
+    /**
+     * Return the pose, for telemetry
+     *
+     * @return the pose as a String
+     */
+    public String toString() {
+        return String.format("(%.2f, %.2f, %.2f)", x, y, heading);
+    }
+}
@@ -0,0 +1,113 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+/**
+ * A trapezoidal motion profile for one joint, which can be stretched to a
+ * longer duration so several joints finish together
+ */
+public class TrapezoidProfile {
+    private double start, distance, direction;
+    private double velocity, acceleration;
+    private double accelTime, cruiseTime;
+
+    /**
+     * Plans the fastest move between two positions, starting and ending at rest
+     *
+     * @param start the starting position
+     * @param end the goal position
+     * @param maxVelocity the velocity limit, positive
+     * @param maxAcceleration the acceleration limit, positive
+     */
+    public void set(double start, double end, double maxVelocity, double maxAcceleration) {
+        this.start = start;
+        distance = Math.abs(end - start);
+        direction = Math.signum(end - start);
+        acceleration = maxAcceleration;
+        // too short to reach the limit, the profile is a triangle
+        velocity = Math.min(maxVelocity, Math.sqrt(distance * maxAcceleration));
+        accelTime = velocity == 0.0 ? 0.0 : velocity / acceleration;
+        cruiseTime = velocity == 0.0 ? 0.0 : Math.max(distance / velocity - accelTime, 0.0);
+    }
+
+    /**
+     * Slows the move down to take a longer duration. Scaling the velocity
+     * by s and the acceleration by s^2 scales the time by 1/s, so the shape stays the same.
+     *
+     * @param duration the new duration in seconds, ignored if shorter than the current one
+     */
+    public void stretch(double duration) {
+        double current = getDuration();
+        if(duration <= current || current == 0.0)
+            return;
+        double scale = current / duration;
+        velocity *= scale;
+        acceleration *= scale * scale;
+        accelTime /= scale;
+        cruiseTime /= scale;
+    }
+
+    /**
+     * The time the move takes
+     *
+     * @return the duration in seconds
+     */
+    public double getDuration() {
+        return 2.0 * accelTime + cruiseTime;
+    }
+
+    /**
+     * The position along the move
+     *
+     * @param time the seconds since the start of the move
+     *
+     * @return the position
+     */
+    public double getPosition(double time) {
+        double duration = getDuration();
+        time = MathUtilities.clip(time, 0.0, duration);
+        double travelled;
+        if(time < accelTime)
+            travelled = 0.5 * acceleration * time * time;
+        else if(time < accelTime + cruiseTime)
+            travelled = 0.5 * velocity * accelTime + velocity * (time - accelTime);
+        else {
+            double remaining = duration - time;
+            travelled = distance - 0.5 * acceleration * remaining * remaining;
+        }
+        return start + direction * travelled;
+    }
+
+    /**
+     * The velocity along the move
+     *
+     * @param time the seconds since the start of the move
+     *
+     * @return the velocity, 0 before and after the move
+     */
+    public double getVelocity(double time) {
+        double duration = getDuration();
+        if(time <= 0.0 || time >= duration)
+            return 0.0;
+        if(time < accelTime)
+            return direction * acceleration * time;
+        if(time < accelTime + cruiseTime)
+            return direction * velocity;
+        return direction * acceleration * (duration - time);
+    }
+
+    /**
+     * The acceleration along the move
+     *
+     * @param time the seconds since the start of the move
+     *
+     * @return the acceleration, 0 while cruising, before and after the move
+     */
+    public double getAcceleration(double time) {
+        if(time <= 0.0 || time >= getDuration())
+            return 0.0;
+        if(time < accelTime)
+            return direction * acceleration;
+        if(time < accelTime + cruiseTime)
+            return 0.0;
+        return -direction * acceleration;
+    }
+}
@@ -0,0 +1,61 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+/**
+ * An immutable robot-relative change in pose, such as the
+ * motion measured by the dead wheels over one loop.
+ * x is to the robot's right, y is forward.
+ */
+public final class Twist2d {
+    private final double dx;
+    private final double dy;
+    private final double dHeading;
+
+    /**
+     * Creates a Twist2d
+     *
+     * @param dx the strafe distance in inches, right is positive
+     * @param dy the forward distance in inches
+     * @param dHeading the heading change in degrees, counterclockwise is positive
+     */
+    public Twist2d(double dx, double dy, double dHeading) {
+        this.dx = dx;
+        this.dy = dy;
+        this.dHeading = dHeading;
+    }
+
+    /**
+     * The strafe distance
+     *
+     * @return the distance in inches, right is positive
+     */
+    public double getDx() {
+        return dx;
+    }
+
+    /**
+     * The forward distance
+     *
+     * @return the distance in inches
+     */
+    public double getDy() {
+        return dy;
+    }
+
+    /**
+     * The heading change
+     *
+     * @return the change in degrees
+     */
+    public double getDHeading() {
+        return dHeading;
+    }
+
+    /**
+     * Return the twist, for telemetry
+     *
+     * @return the twist as a String
+     */
+    public String toString() {
+        return String.format("(%.3f, %.3f, %.3f)", dx, dy, dHeading);
+    }
+}
@@ -0,0 +1,66 @@
+package org.firstinspires.ftc.teamcode.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ResponseCurveTest {
+    private static final double EPSILON = 1.0E-6;
+
+    @Test
+    public void zeroExpoIsLinear() {
+        ResponseCurve curve = ResponseCurve.expo(0.0);
+        for(double input = -1.0; input <= 1.0; input += 0.01)
+            assertEquals(input, curve.apply(input), EPSILON);
+    }
+
+    @Test
+    public void fullExpoIsCubic() {
+        ResponseCurve curve = ResponseCurve.expo(1.0);
+        assertEquals(0.125, curve.apply(0.5), EPSILON);
+        assertEquals(-0.125, curve.apply(-0.5), EPSILON);
+    }
+
+    @Test
+    public void expoKeepsTheEndsAndSign() {
+        ResponseCurve curve = ResponseCurve.expo(0.4);
+        assertEquals(0.0, curve.apply(0.0), EPSILON);
+        assertEquals(1.0, curve.apply(1.0), EPSILON);
+        assertEquals(-1.0, curve.apply(-1.0), EPSILON);
+        assertEquals(-curve.apply(0.3), curve.apply(-0.3), EPSILON);
+        assertTrue(curve.apply(0.3) < 0.3);
+    }
+
+    @Test
+    public void expoIsMonotonic() {
+        ResponseCurve curve = ResponseCurve.expo(0.7);
+        double previous = curve.apply(0.0);
+        for(double input = 0.005; input <= 1.0; input += 0.005) {
+            double output = curve.apply(input);
+            assertTrue(output >= previous);
+            previous = output;
+        }
+    }
+
+    @Test
+    public void inputsPastFullAreClipped() {
+        ResponseCurve curve = ResponseCurve.expo(0.4);
+        assertEquals(1.0, curve.apply(1.5), EPSILON);
+        assertEquals(-1.0, curve.apply(-2.0), EPSILON);
+    }
+
+    @Test
+    public void piecewiseGoesThroughItsPoints() {
+        ResponseCurve curve = ResponseCurve.piecewise(new double[] { 0.5 }, new double[] { 0.25 });
+        assertEquals(0.25, curve.apply(0.5), EPSILON);
+        assertEquals(0.125, curve.apply(0.25), EPSILON);
+        assertEquals(0.625, curve.apply(0.75), EPSILON);
+        assertEquals(1.0, curve.apply(1.0), EPSILON);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void piecewiseNeedsMatchingPoints() {
+        ResponseCurve.piecewise(new double[] { 0.2, 0.6 }, new double[] { 0.1 });
+    }
+}
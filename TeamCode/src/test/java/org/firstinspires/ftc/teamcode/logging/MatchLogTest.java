@@ -0,0 +1,51 @@
+package org.firstinspires.ftc.teamcode.logging;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class MatchLogTest {
+    @Test
+    public void recordsReadBack() throws IOException {
+        File file = File.createTempFile("matchlog", ".bin");
+        file.deleteOnExit();
+
+        MatchRecorder recorder = new MatchRecorder(file);
+        recorder.recordOdometry(1000L, 10, -20, 30);
+        recorder.recordDriveVelocities(2000L, 1.5, -2.5, 3.5, -4.5, 5.5, -6.5, 7.5, -8.5);
+        recorder.recordOdometry(3000L, Integer.MAX_VALUE, Integer.MIN_VALUE, 0);
+        assertEquals(3, recorder.getNumRecords());
+        recorder.close();
+
+        MatchLog log = new MatchLog(file);
+        assertEquals(3, log.getNumRecords());
+
+        log.seek(0);
+        assertEquals(MatchLog.TYPE_ODOMETRY, log.getType());
+        assertEquals(1000L, log.getTimeNanos());
+        assertEquals(10, log.getInt(0));
+        assertEquals(-20, log.getInt(4));
+        assertEquals(30, log.getInt(8));
+
+        log.seek(1);
+        assertEquals(MatchLog.TYPE_DRIVE, log.getType());
+        assertEquals(2000L, log.getTimeNanos());
+        for(int i = 0; i < 8; i++)
+            assertEquals((i + 1.5) * (i % 2 == 0 ? 1 : -1), log.getFloat(i * 4), 0.0);
+
+        log.seek(2);
+        assertEquals(Integer.MAX_VALUE, log.getInt(0));
+        assertEquals(Integer.MIN_VALUE, log.getInt(4));
+    }
+
+    @Test
+    public void emptyLogHasNoRecords() throws IOException {
+        File file = File.createTempFile("matchlog", ".bin");
+        file.deleteOnExit();
+        new MatchRecorder(file).close();
+        assertEquals(0, new MatchLog(file).getNumRecords());
+    }
+}
@@ -0,0 +1,53 @@
+package org.firstinspires.ftc.teamcode.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.firstinspires.ftc.teamcode.utils.Constants;
+import org.junit.Test;
+
+public class MotionHistoryTest implements Constants {
+    private static final double EPSILON = 1.0E-9;
+
+    @Test
+    public void emptyHistoryIsUnknown() {
+        assertTrue(Double.isNaN(new MotionHistory().getAngularVelocity(100L)));
+    }
+
+    @Test
+    public void findsTheIntervalContainingATime() {
+        MotionHistory history = new MotionHistory();
+        history.add(100L, 1.0);
+        history.add(200L, 2.0);
+        history.add(300L, 3.0);
+        assertEquals(2.0, history.getAngularVelocity(150L), EPSILON);
+        assertEquals(2.0, history.getAngularVelocity(200L), EPSILON);
+        assertEquals(3.0, history.getAngularVelocity(250L), EPSILON);
+    }
+
+    @Test
+    public void timesAfterTheNewestUseTheNewest() {
+        MotionHistory history = new MotionHistory();
+        history.add(100L, 1.0);
+        history.add(200L, 2.0);
+        assertEquals(2.0, history.getAngularVelocity(1000L), EPSILON);
+    }
+
+    @Test
+    public void timesBeforeTheHistoryAreUnknown() {
+        MotionHistory history = new MotionHistory();
+        history.add(100L, 1.0);
+        history.add(200L, 2.0);
+        assertTrue(Double.isNaN(history.getAngularVelocity(50L)));
+    }
+
+    @Test
+    public void oldSamplesAreOverwritten() {
+        MotionHistory history = new MotionHistory();
+        for(int i = 1; i <= MOTION_HISTORY_SIZE + 10; i++)
+            history.add(i * 100L, i);
+        assertTrue(Double.isNaN(history.getAngularVelocity(500L)));
+        assertEquals(MOTION_HISTORY_SIZE + 10, history.getAngularVelocity((MOTION_HISTORY_SIZE + 10) * 100L - 50L), EPSILON);
+        assertEquals(20.0, history.getAngularVelocity(1950L), EPSILON);
+    }
+}
@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+
+public class Pose2dTest {
+    private static final double EPSILON = 1.0E-9;
+
+    @Test
+    public void zeroTwistKeepsThePose() {
+        Pose2d pose = new Pose2d(12.0, -30.0, 45.0);
+        Pose2d moved = pose.exp(new Twist2d(0.0, 0.0, 0.0));
+        assertEquals(12.0, moved.getX(), EPSILON);
+        assertEquals(-30.0, moved.getY(), EPSILON);
+        assertEquals(45.0, moved.getHeading(), EPSILON);
+    }
+
+    @Test
+    public void forwardFollowsTheHeading() {
+        Pose2d facingPlusY = new Pose2d(0.0, 0.0, 90.0).exp(new Twist2d(0.0, 10.0, 0.0));
+        assertEquals(0.0, facingPlusY.getX(), EPSILON);
+        assertEquals(10.0, facingPlusY.getY(), EPSILON);
+
+        Pose2d facingPlusX = new Pose2d(0.0, 0.0, 0.0).exp(new Twist2d(0.0, 10.0, 0.0));
+        assertEquals(10.0, facingPlusX.getX(), EPSILON);
+        assertEquals(0.0, facingPlusX.getY(), EPSILON);
+    }
+
+    @Test
+    public void strafeIsToTheRight() {
+        Pose2d moved = new Pose2d(0.0, 0.0, 90.0).exp(new Twist2d(5.0, 0.0, 0.0));
+        assertEquals(5.0, moved.getX(), EPSILON);
+        assertEquals(0.0, moved.getY(), EPSILON);
+    }
+
+    @Test
+    public void headingWrapsAround() {
+        Pose2d moved = new Pose2d(0.0, 0.0, 170.0).exp(new Twist2d(0.0, 0.0, 20.0));
+        assertEquals(-170.0, moved.getHeading(), EPSILON);
+    }
+
+    @Test
+    public void expLeavesTheOriginalUnchanged() {
+        Pose2d pose = new Pose2d(1.0, 2.0, 3.0);
+        Pose2d moved = pose.exp(new Twist2d(4.0, 5.0, 6.0));
+        assertNotSame(pose, moved);
+        assertEquals(1.0, pose.getX(), EPSILON);
+        assertEquals(2.0, pose.getY(), EPSILON);
+        assertEquals(3.0, pose.getHeading(), EPSILON);
+    }
+
+    @Test
+    public void distanceToAPoint() {
+        assertEquals(5.0, new Pose2d(1.0, 1.0, 0.0).distanceTo(4.0, 5.0), EPSILON);
+    }
+
+    @Test
+    public void interpolateEndpoints() {
+        Pose2d from = new Pose2d(0.0, 0.0, 0.0);
+        Pose2d to = new Pose2d(10.0, -20.0, 90.0);
+        Pose2d start = from.interpolate(to, 0.0);
+        Pose2d end = from.interpolate(to, 1.0);
+        assertEquals(0.0, start.getX(), EPSILON);
+        assertEquals(0.0, start.getHeading(), EPSILON);
+        assertEquals(10.0, end.getX(), EPSILON);
+        assertEquals(-20.0, end.getY(), EPSILON);
+        assertEquals(90.0, end.getHeading(), EPSILON);
+    }
+
+    @Test
+    public void interpolateTakesTheShortWayAround() {
+        Pose2d halfway = new Pose2d(0.0, 0.0, 170.0).interpolate(new Pose2d(0.0, 0.0, -170.0), 0.5);
+        assertEquals(180.0, Math.abs(halfway.getHeading()), EPSILON);
+    }
+
+    @Test
+    public void twistKeepsItsValues() {
+        Twist2d twist = new Twist2d(1.5, -2.5, 30.0);
+        assertEquals(1.5, twist.getDx(), EPSILON);
+        assertEquals(-2.5, twist.getDy(), EPSILON);
+        assertEquals(30.0, twist.getDHeading(), EPSILON);
+    }
+}
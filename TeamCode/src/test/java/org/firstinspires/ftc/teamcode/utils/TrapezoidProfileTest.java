@@ -0,0 +1,94 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrapezoidProfileTest {
+    private static final double EPSILON = 1.0E-9;
+
+    @Test
+    public void trapezoidDuration() {
+        TrapezoidProfile profile = new TrapezoidProfile();
+        // 0.5 s to reach 50, 12.5 covered each way, 75 at cruise
+        profile.set(0.0, 100.0, 50.0, 100.0);
+        assertEquals(2.5, profile.getDuration(), EPSILON);
+        assertEquals(50.0, profile.getVelocity(1.0), EPSILON);
+        assertEquals(0.0, profile.getAcceleration(1.0), EPSILON);
+    }
+
+    @Test
+    public void shortMoveIsATriangle() {
+        TrapezoidProfile profile = new TrapezoidProfile();
+        profile.set(0.0, 1.0, 50.0, 100.0);
+        assertEquals(0.2, profile.getDuration(), EPSILON);
+        assertEquals(10.0, profile.getVelocity(0.1), 1.0E-6);
+        assertEquals(1.0, profile.getPosition(0.2), EPSILON);
+    }
+
+    @Test
+    public void startsAndEndsAtRest() {
+        TrapezoidProfile profile = new TrapezoidProfile();
+        profile.set(30.0, -60.0, 40.0, 80.0);
+        double duration = profile.getDuration();
+        assertEquals(30.0, profile.getPosition(0.0), EPSILON);
+        assertEquals(-60.0, profile.getPosition(duration), EPSILON);
+        assertEquals(-60.0, profile.getPosition(duration + 1.0), EPSILON);
+        assertEquals(0.0, profile.getVelocity(0.0), EPSILON);
+        assertEquals(0.0, profile.getVelocity(duration), EPSILON);
+        assertTrue(profile.getVelocity(duration / 2) < 0.0);
+    }
+
+    @Test
+    public void velocityIsContinuous() {
+        TrapezoidProfile profile = new TrapezoidProfile();
+        profile.set(0.0, 90.0, 150.0, 300.0);
+        double dt = 1.0E-4;
+        double previous = profile.getVelocity(0.0);
+        for(double t = dt; t <= profile.getDuration(); t += dt) {
+            double velocity = profile.getVelocity(t);
+            assertTrue(Math.abs(velocity - previous) <= 300.0 * dt + 1.0E-6);
+            previous = velocity;
+        }
+    }
+
+    @Test
+    public void positionIsTheIntegralOfVelocity() {
+        TrapezoidProfile profile = new TrapezoidProfile();
+        profile.set(10.0, 100.0, 150.0, 300.0);
+        double dt = 1.0E-4;
+        double position = 10.0;
+        for(double t = 0.0; t < profile.getDuration(); t += dt)
+            position += profile.getVelocity(t + dt / 2) * dt;
+        assertEquals(100.0, position, 1.0E-2);
+    }
+
+    @Test
+    public void stretchKeepsTheEndpoints() {
+        TrapezoidProfile profile = new TrapezoidProfile();
+        profile.set(0.0, 100.0, 50.0, 100.0);
+        profile.stretch(5.0);
+        assertEquals(5.0, profile.getDuration(), EPSILON);
+        assertEquals(100.0, profile.getPosition(5.0), EPSILON);
+        assertEquals(25.0, profile.getVelocity(2.5), EPSILON);
+    }
+
+    @Test
+    public void stretchNeverShortens() {
+        TrapezoidProfile profile = new TrapezoidProfile();
+        profile.set(0.0, 100.0, 50.0, 100.0);
+        profile.stretch(1.0);
+        assertEquals(2.5, profile.getDuration(), EPSILON);
+    }
+
+    @Test
+    public void zeroDistanceHoldsStill() {
+        TrapezoidProfile profile = new TrapezoidProfile();
+        profile.set(42.0, 42.0, 50.0, 100.0);
+        profile.stretch(1.0);
+        assertEquals(0.0, profile.getDuration(), EPSILON);
+        assertEquals(42.0, profile.getPosition(0.5), EPSILON);
+        assertEquals(0.0, profile.getVelocity(0.5), EPSILON);
+    }
+}